@@ -0,0 +1,303 @@
+package com.strategicgains.hyperexpress.apt;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+import com.strategicgains.hyperexpress.ResourceCopiers;
+import com.strategicgains.hyperexpress.annotation.GenerateCopier;
+import com.strategicgains.hyperexpress.annotation.TokenBinding;
+
+/**
+ * Generates, for each class annotated with {@link GenerateCopier}, a ResourceCopier that copies the same fields
+ * AbstractResourceFactoryStrategy copies by default (all but static, final, transient and volatile ones) and, when
+ * fields are annotated with {@link TokenBinding}, a TokenBinder for the class that DefaultTokenResolver applies to
+ * its instances. Fields are read directly when accessible from the class's package, otherwise through their getter;
+ * a field that is neither is a compile error.
+ */
+public class ResourceProcessor extends AbstractProcessor {
+    private static final String RESOURCE_COPIER = "com.strategicgains.hyperexpress.ResourceCopier";
+    private static final String RESOURCE = "com.strategicgains.hyperexpress.domain.Resource";
+    private static final String TOKEN_BINDER = "com.strategicgains.hyperexpress.builder.TokenBinder";
+    private static final String TOKEN_RESOLVER = "com.strategicgains.hyperexpress.builder.TokenResolver";
+
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<String>(Arrays.asList(GenerateCopier.class.getName(), TokenBinding.class.getName()));
+    }
+
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateCopier.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateCopier applies only to classes");
+                continue;
+            }
+
+            try {
+                generate((TypeElement) element);
+            } catch (IOException e) {
+                error(element, "Cannot write generated source: " + e.getMessage());
+            }
+        }
+
+        return true;
+    }
+
+    private void generate(TypeElement type)
+    throws IOException {
+        List<Property> copied = new ArrayList<Property>();
+        List<Property> bound = new ArrayList<Property>();
+        boolean isValid = collect(type, copied, bound);
+
+        if (!isValid) {
+            return;
+        }
+
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String packageName = packageOf(type);
+        String typeName = type.getQualifiedName().toString() + wildcards(type);
+
+        writeCopier(type, ResourceCopiers.copierClassName(binaryName), packageName, typeName, copied);
+
+        if (!bound.isEmpty()) {
+            writeBinder(type, ResourceCopiers.binderClassName(binaryName), packageName, typeName, bound);
+        }
+    }
+
+    private boolean collect(TypeElement type, List<Property> copied, List<Property> bound) {
+        String packageName = packageOf(type);
+        boolean isValid = true;
+
+        for (TypeElement current = type; current != null; current = superclassOf(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                TokenBinding binding = field.getAnnotation(TokenBinding.class);
+                boolean isCopied = !hasAny(field, Modifier.STATIC, Modifier.FINAL, Modifier.TRANSIENT,
+                        Modifier.VOLATILE);
+
+                if (!isCopied && binding == null) {
+                    continue;
+                }
+
+                String reader = readerFor(field, current, type, packageName);
+
+                if (reader == null) {
+                    error(field, "Field '" + field.getSimpleName() + "' is neither accessible from package '" +
+                        packageName + "' nor readable through an accessible getter");
+                    isValid = false;
+                    continue;
+                }
+
+                Property property = new Property(field.getSimpleName().toString(), reader,
+                        field.asType().getKind().isPrimitive());
+
+                if (isCopied) {
+                    copied.add(property);
+                }
+
+                if (binding != null) {
+                    bound.add(new Property(binding.value(), reader, property.isPrimitive));
+                }
+            }
+        }
+
+        return isValid;
+    }
+
+    private String readerFor(VariableElement field, TypeElement declaringType, TypeElement type, String packageName) {
+        if (isAccessible(field, declaringType, packageName)) {
+            return field.getSimpleName().toString();
+        }
+
+        String name = field.getSimpleName().toString();
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        boolean isBoolean = (field.asType().getKind() == TypeKind.BOOLEAN);
+
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            String methodName = method.getSimpleName().toString();
+
+            if (method.getParameters().isEmpty() && !method.getModifiers().contains(Modifier.STATIC) &&
+                    isAccessible(method, (TypeElement) method.getEnclosingElement(), packageName) &&
+                    processingEnv.getTypeUtils().isSameType(method.getReturnType(), field.asType()) &&
+                    (methodName.equals("get" + suffix) || (isBoolean && methodName.equals("is" + suffix)))) {
+                return methodName + "()";
+            }
+        }
+
+        return null;
+    }
+
+    private boolean isAccessible(Element member, TypeElement declaringType, String packageName) {
+        Set<Modifier> modifiers = member.getModifiers();
+
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+
+        return (modifiers.contains(Modifier.PUBLIC) && declaringType.getModifiers().contains(Modifier.PUBLIC)) ||
+            packageName.equals(packageOf(declaringType));
+    }
+
+    private void writeCopier(TypeElement type, String className, String packageName, String typeName,
+        List<Property> properties)
+    throws IOException {
+        StringBuilder s = header(packageName, className, RESOURCE_COPIER, typeName);
+        s.append("    public void copyProperties(").append(typeName).append(" from, ").append(RESOURCE)
+        .append(" to) {\n");
+
+        for (Property property : properties) {
+            if (property.isPrimitive) {
+                s.append("        to.addProperty(\"").append(property.name).append("\", from.").append(property.reader)
+                .append(");\n");
+            } else {
+                s.append("        {\n");
+                s.append("            Object value = from.").append(property.reader).append(";\n\n");
+                s.append("            if (value != null) {\n");
+                s.append("                to.addProperty(\"").append(property.name).append("\", value);\n");
+                s.append("            }\n");
+                s.append("        }\n");
+            }
+        }
+
+        s.append("    }\n}\n");
+        write(type, className, s);
+    }
+
+    private void writeBinder(TypeElement type, String className, String packageName, String typeName,
+        List<Property> properties)
+    throws IOException {
+        StringBuilder s = header(packageName, className, TOKEN_BINDER, typeName);
+        s.append("    public void bind(").append(typeName).append(" from, ").append(TOKEN_RESOLVER)
+        .append(" resolver) {\n");
+
+        for (Property property : properties) {
+            if (property.isPrimitive) {
+                s.append("        resolver.bind(\"").append(property.name).append("\", String.valueOf(from.")
+                .append(property.reader).append("));\n");
+            } else {
+                s.append("        {\n");
+                s.append("            Object value = from.").append(property.reader).append(";\n\n");
+                s.append("            if (value != null) {\n");
+                s.append("                resolver.bind(\"").append(property.name)
+                .append("\", String.valueOf(value));\n");
+                s.append("            }\n");
+                s.append("        }\n");
+            }
+        }
+
+        s.append("    }\n}\n");
+        write(type, className, s);
+    }
+
+    private StringBuilder header(String packageName, String className, String interfaceName, String typeName) {
+        StringBuilder s = new StringBuilder(1024);
+
+        if (!packageName.isEmpty()) {
+            s.append("package ").append(packageName).append(";\n\n");
+        }
+
+        s.append("/**\n * Generated by ").append(getClass().getName()).append(". Do not edit.\n */\n");
+        s.append("public final class ").append(className.substring(className.lastIndexOf('.') + 1))
+        .append(" implements ").append(interfaceName).append("<").append(typeName).append("> {\n");
+
+        return s;
+    }
+
+    private void write(TypeElement type, String className, StringBuilder source)
+    throws IOException {
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(className, type);
+        Writer writer = file.openWriter();
+
+        try {
+            writer.write(source.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Returns "<?, ...>" for a generic type, so generated classes never use it raw.
+     */
+    private String wildcards(TypeElement type) {
+        int count = type.getTypeParameters().size();
+
+        if (count == 0) {
+            return "";
+        }
+
+        StringBuilder s = new StringBuilder("<?");
+
+        for (int i = 1; i < count; ++i) {
+            s.append(", ?");
+        }
+
+        return s.append('>').toString();
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+
+        return (Object.class.getName().equals(element.getQualifiedName().toString()) ? null : element);
+    }
+
+    private String packageOf(TypeElement type) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+
+        return (pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString());
+    }
+
+    private boolean hasAny(Element element, Modifier... modifiers) {
+        for (Modifier modifier : modifiers) {
+            if (element.getModifiers().contains(modifier)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+    }
+
+    private static class Property {
+        private final String name;
+        private final String reader;
+        private final boolean isPrimitive;
+
+        Property(String name, String reader, boolean isPrimitive) {
+            this.name = name;
+            this.reader = reader;
+            this.isPrimitive = isPrimitive;
+        }
+    }
+}
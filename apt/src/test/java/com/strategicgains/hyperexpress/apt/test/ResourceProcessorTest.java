@@ -0,0 +1,228 @@
+package com.strategicgains.hyperexpress.apt.test;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.strategicgains.hyperexpress.AbstractResourceFactoryStrategy;
+import com.strategicgains.hyperexpress.ResourceCopier;
+import com.strategicgains.hyperexpress.ResourceCopiers;
+import com.strategicgains.hyperexpress.apt.ResourceProcessor;
+import com.strategicgains.hyperexpress.builder.DefaultTokenResolver;
+import com.strategicgains.hyperexpress.builder.TokenBinder;
+import com.strategicgains.hyperexpress.builder.TokenResolver;
+import com.strategicgains.hyperexpress.domain.Resource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ResourceProcessorTest {
+    private static final String BASE =
+        "package com.example.domain;\n" +
+        "public class Base {\n" +
+        "    protected String id;\n" +
+        "    private long version;\n" +
+        "    public long getVersion() { return version; }\n" +
+        "}\n";
+
+    private static final String BLOG =
+        "package com.example.domain;\n" +
+        "import com.strategicgains.hyperexpress.annotation.GenerateCopier;\n" +
+        "import com.strategicgains.hyperexpress.annotation.TokenBinding;\n" +
+        "@GenerateCopier\n" +
+        "public class Blog extends Base {\n" +
+        "    private static final String IGNORED = \"ignored\";\n" +
+        "    private transient String cache = \"cached\";\n" +
+        "    @TokenBinding(\"blogId\")\n" +
+        "    private String name;\n" +
+        "    private boolean active = true;\n" +
+        "    int entries = 3;\n" +
+        "    private String description;\n" +
+        "    public Blog(String id, String name) { this.id = id; this.name = name; }\n" +
+        "    public String getName() { return name; }\n" +
+        "    public boolean isActive() { return active; }\n" +
+        "    public String getDescription() { return description; }\n" +
+        "}\n";
+
+    private static final String PAGE =
+        "package com.example.domain;\n" +
+        "import java.util.List;\n" +
+        "import com.strategicgains.hyperexpress.annotation.GenerateCopier;\n" +
+        "import com.strategicgains.hyperexpress.annotation.TokenBinding;\n" +
+        "@GenerateCopier\n" +
+        "public class Page<T, K extends Comparable<K>> {\n" +
+        "    @TokenBinding(\"page\")\n" +
+        "    int number = 2;\n" +
+        "    List<T> items;\n" +
+        "    K key;\n" +
+        "}\n";
+
+    private static final String HIDDEN =
+        "package com.example.domain;\n" +
+        "@com.strategicgains.hyperexpress.annotation.GenerateCopier\n" +
+        "public class Hidden {\n" +
+        "    private String secret;\n" +
+        "}\n";
+
+    @Test
+    public void shouldGenerateCopierAndBinder() throws Exception {
+        File output = Files.createTempDirectory("apt").toFile();
+        DiagnosticCollector<JavaFileObject> diagnostics = compile(output, source("Base", BASE), source("Blog", BLOG),
+                source("Page", PAGE));
+        assertTrue(diagnostics.getDiagnostics().toString(), diagnostics.getDiagnostics().isEmpty());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { output.toURI().toURL() },
+                    getClass().getClassLoader())) {
+            Class<?> blogType = loader.loadClass("com.example.domain.Blog");
+            Object blog = blogType.getConstructor(String.class, String.class).newInstance("42", "todd");
+
+            @SuppressWarnings("unchecked")
+            ResourceCopier<Object> copier = (ResourceCopier<Object>) ResourceCopiers.forClass(blogType);
+            assertNotNull(copier);
+
+            Resource r = new StrategyUnderTest().createResource(blog);
+            assertEquals(Arrays.asList("name", "active", "entries", "id", "version"),
+                Arrays.asList(r.getProperties().keySet().toArray()));
+            assertEquals("todd", r.getProperty("name"));
+            assertEquals(Boolean.TRUE, r.getProperty("active"));
+            assertEquals(3, r.getProperty("entries"));
+            assertEquals("42", r.getProperty("id"));
+            assertEquals(0L, r.getProperty("version"));
+            assertNull(r.getProperty("description"));
+            assertFalse(r.hasProperty("cache"));
+
+            Class<?> pageType = loader.loadClass("com.example.domain.Page");
+            assertNotNull(ResourceCopiers.forClass(pageType));
+            Object page = pageType.getDeclaredConstructor().newInstance();
+            assertEquals(2, new StrategyUnderTest().createResource(page).getProperty("number"));
+        }
+    }
+
+    @Test
+    public void shouldApplyGeneratedBinderByType() throws Exception {
+        File output = Files.createTempDirectory("apt").toFile();
+        compile(output, source("Base", BASE), source("Blog", BLOG));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { output.toURI().toURL() },
+                    getClass().getClassLoader())) {
+            Class<?> blogType = loader.loadClass("com.example.domain.Blog");
+            Object blog = blogType.getConstructor(String.class, String.class).newInstance("42", "todd");
+            assertEquals(ResourceCopiers.binderClassName(blogType.getName()),
+                ResourceCopiers.binderFor(blogType).getClass().getName());
+
+            DefaultTokenResolver resolver = new DefaultTokenResolver();
+            assertEquals("/blogs/{blogId}", resolver.resolve("/blogs/{blogId}", blog));
+
+            resolver.binder(Object.class, ResourceCopiers.generatedBinders());
+            assertEquals("/blogs/todd", resolver.resolve("/blogs/{blogId}", blog));
+
+            resolver.binder(Object.class, new TokenBinder<Object>() {
+                    public void bind(Object object, TokenResolver r) {
+                        r.bind("blogId", "registered");
+                    }
+                });
+            assertEquals("/blogs/registered", resolver.resolve("/blogs/{blogId}", blog));
+        }
+    }
+
+    @Test
+    public void shouldNotUseCopierForCustomizedStrategy() throws Exception {
+        File output = Files.createTempDirectory("apt").toFile();
+        compile(output, source("Base", BASE), source("Blog", BLOG));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { output.toURI().toURL() },
+                    getClass().getClassLoader())) {
+            Object blog = loader.loadClass("com.example.domain.Blog").getConstructor(String.class, String.class)
+                .newInstance("42", "todd");
+            StrategyUnderTest renaming = new StrategyUnderTest() {
+                protected void addProperty(Resource to, Field f, Object value) {
+                    to.addProperty("_" + f.getName(), value);
+                }
+            };
+
+            Resource r = renaming.createResource(blog);
+            assertEquals("todd", r.getProperty("_name"));
+            assertFalse(r.hasProperty("name"));
+        }
+    }
+
+    @Test
+    public void shouldRejectInaccessibleField() throws Exception {
+        File output = Files.createTempDirectory("apt").toFile();
+        DiagnosticCollector<JavaFileObject> diagnostics = compile(output, source("Hidden", HIDDEN));
+        List<Diagnostic<? extends JavaFileObject>> errors = diagnostics.getDiagnostics();
+
+        assertEquals(1, errors.size());
+        assertEquals(Diagnostic.Kind.ERROR, errors.get(0).getKind());
+        assertTrue(errors.get(0).getMessage(null).contains("'secret'"));
+    }
+
+    private DiagnosticCollector<JavaFileObject> compile(File output, JavaFileObject... sources)
+    throws IOException, URISyntaxException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null);
+        String classpath = locationOf(Resource.class) + File.pathSeparator + locationOf(ResourceProcessor.class);
+        List<String> options = Arrays.asList("-Xlint:all", "-classpath", classpath, "-d", output.getPath(), "-s",
+                output.getPath());
+
+        try {
+            CompilationTask task = compiler.getTask(null, files, diagnostics, options, null, Arrays.asList(sources));
+            task.setProcessors(Collections.singletonList(new ResourceProcessor()));
+            task.call();
+        } finally {
+            files.close();
+        }
+
+        return diagnostics;
+    }
+
+    private static String locationOf(Class<?> type) throws URISyntaxException {
+        return new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    private static JavaFileObject source(String simpleName, final String code) {
+        return new SimpleJavaFileObject(new File("com/example/domain/" + simpleName + ".java").toURI(),
+            JavaFileObject.Kind.SOURCE) {
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    private static class StrategyUnderTest extends AbstractResourceFactoryStrategy {
+        public Resource createResource(Object object) {
+            Resource r = new TestResource();
+            copyProperties(object, r);
+
+            return r;
+        }
+
+        public Class<? extends Resource> getResourceType() {
+            return TestResource.class;
+        }
+    }
+
+    private static class TestResource extends com.strategicgains.hyperexpress.domain.AbstractResource {
+    }
+}
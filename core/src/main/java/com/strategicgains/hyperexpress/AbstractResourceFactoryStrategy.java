@@ -3,19 +3,26 @@ package com.strategicgains.hyperexpress;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import com.strategicgains.hyperexpress.domain.Resource;
-import com.strategicgains.hyperexpress.exception.ResourceException;
 
 public abstract class AbstractResourceFactoryStrategy implements ResourceFactoryStrategy {
     public static final int IGNORED_FIELD_MODIFIERS =
         Modifier.FINAL | Modifier.STATIC | Modifier.TRANSIENT | Modifier.VOLATILE;
 
-    private Set<Class<? extends Annotation>> inclusionAnnotations;
-    private Set<Class<? extends Annotation>> exclusionAnnotations;
+    private static final PropertyAccessor[] NO_ACCESSORS = new PropertyAccessor[0];
+
+    private volatile Set<Class<? extends Annotation>> inclusionAnnotations;
+    private volatile Set<Class<? extends Annotation>> exclusionAnnotations;
+    private volatile boolean useMethodHandles = false;
+    private volatile ClassValue<PropertyAccessor[]> accessors = newAccessorCache();
+    private final boolean isCustomCopy = overrides("addProperty", Resource.class, Field.class, Object.class) ||
+        overrides("createPropertyAccessor", Field.class);
 
     @SafeVarargs
     public final AbstractResourceFactoryStrategy includeAnnotations(Class<? extends Annotation>... annotations) {
@@ -23,11 +30,8 @@ public abstract class AbstractResourceFactoryStrategy implements ResourceFactory
             return this;
         }
 
-        if (inclusionAnnotations == null) {
-            inclusionAnnotations = new HashSet<>();
-        }
-
-        inclusionAnnotations.addAll(Arrays.asList(annotations));
+        inclusionAnnotations = union(inclusionAnnotations, annotations);
+        accessors = newAccessorCache();
 
         return this;
     }
@@ -38,68 +42,187 @@ public abstract class AbstractResourceFactoryStrategy implements ResourceFactory
             return this;
         }
 
-        if (exclusionAnnotations == null) {
-            exclusionAnnotations = new HashSet<>();
-        }
+        exclusionAnnotations = union(exclusionAnnotations, annotations);
+        accessors = newAccessorCache();
 
-        exclusionAnnotations.addAll(Arrays.asList(annotations));
+        return this;
+    }
+
+    /**
+     * Selects the property accessor backend: MethodHandle getters when true, reflective Field.get() (the default)
+     * when false.
+     */
+    public final AbstractResourceFactoryStrategy useMethodHandles(boolean value) {
+        useMethodHandles = value;
+        accessors = newAccessorCache();
 
         return this;
     }
 
-    protected void copyProperties(Object from, Resource to) {
-        copyProperties0(from.getClass(), from, to);
+    public boolean isUsingMethodHandles() {
+        return useMethodHandles;
     }
 
-    protected void addProperty(Resource to, Field f, Object value) {
-        to.addProperty(f.getName(), value);
+    /**
+     * Creates the resource, copying only the projected fields. The empty resource is obtained from
+     * createResource(null); subclasses whose createResource(Object) does more than create a resource and call
+     * copyProperties() should override this method as well.
+     */
+    public Resource createResource(Object object, Projection projection) {
+        if (projection == null || projection.isAllFields()) {
+            return createResource(object);
+        }
+
+        Resource r = createResource(null);
+
+        if (object != null) {
+            copyProperties(object, r, projection);
+        }
+
+        return r;
+    }
+
+    /**
+     * Copies the included fields of the object into the resource. The compile-time generated {@link ResourceCopier}
+     * of the object's class, if it has one, is used instead of property accessors only when the copy is not
+     * customized: no include or exclude annotations, no MethodHandle accessors, and no subclass overriding
+     * addProperty() or createPropertyAccessor(). Projected copies never use it.
+     */
+    protected void copyProperties(Object from, Resource to) {
+        if (from instanceof Resource) {
+            to.from((Resource) from);
+
+            return;
+        }
+
+        if (inclusionAnnotations == null && exclusionAnnotations == null && !useMethodHandles && !isCustomCopy) {
+            @SuppressWarnings("unchecked")
+            ResourceCopier<Object> copier = (ResourceCopier<Object>) ResourceCopiers.forClass(from.getClass());
+
+            if (copier != null) {
+                copier.copyProperties(from, to);
+
+                return;
+            }
+        }
+
+        for (PropertyAccessor accessor : accessors.get(from.getClass())) {
+            Object value = accessor.get(from);
+
+            if (value != null) {
+                addProperty(to, accessor.getField(), value);
+            }
+        }
     }
 
-    private void copyProperties0(Class<?> type, Object from, Resource to) {
-        if (type == null) {
+    /**
+     * Copies only the included fields that are also in the projection. Fields outside the projection are not read.
+     */
+    protected void copyProperties(Object from, Resource to, Projection projection) {
+        if (projection == null || projection.isAllFields()) {
+            copyProperties(from, to);
+
             return;
         }
 
-        if (Resource.class.isAssignableFrom(type)) {
+        if (from instanceof Resource) {
             to.from((Resource) from);
 
+            for (String name : new ArrayList<String>(to.getProperties().keySet())) {
+                if (!projection.includesField(name)) {
+                    to.removeProperty(name);
+                }
+            }
+
             return;
         }
 
-        Field[] fields = getDeclaredFields(type);
+        for (PropertyAccessor accessor : accessors.get(from.getClass())) {
+            if (!projection.includesField(accessor.getName())) {
+                continue;
+            }
+
+            Object value = accessor.get(from);
 
-        try {
-            for (Field f : fields) {
-                if (isIncluded(f)) {
-                    f.setAccessible(true);
+            if (value != null) {
+                addProperty(to, accessor.getField(), value);
+            }
+        }
+    }
+
+    protected void addProperty(Resource to, Field f, Object value) {
+        to.addProperty(f.getName(), value);
+    }
+
+    /**
+     * Returns the accessors for the included fields of the given type and its superclasses, subclass fields first.
+     * The result is computed once per class and discarded when the include or exclude annotations change.
+     */
+    protected PropertyAccessor[] getPropertyAccessors(Class<?> type) {
+        return accessors.get(type);
+    }
+
+    protected PropertyAccessor createPropertyAccessor(Field field) {
+        if (useMethodHandles) {
+            return new MethodHandlePropertyAccessor(field);
+        }
+
+        return new FieldPropertyAccessor(field);
+    }
+
+    private boolean overrides(String methodName, Class<?>... parameterTypes) {
+        for (Class<?> c = getClass(); c != AbstractResourceFactoryStrategy.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(methodName, parameterTypes);
+
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Not declared here; keep looking up the hierarchy.
+            }
+        }
 
-                    Object value = f.get(from);
+        return false;
+    }
+
+    private ClassValue<PropertyAccessor[]> newAccessorCache() {
+        return new ClassValue<PropertyAccessor[]>() {
+            protected PropertyAccessor[] computeValue(Class<?> type) {
+                return buildAccessors(type);
+            }
+        };
+    }
 
-                    if (value != null) {
-                        addProperty(to, f, value);
-                    }
+    private PropertyAccessor[] buildAccessors(Class<?> type) {
+        List<PropertyAccessor> result = new ArrayList<PropertyAccessor>();
+
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (isIncluded(f)) {
+                    result.add(createPropertyAccessor(f));
                 }
             }
-        } catch (IllegalAccessException e) {
-            throw new ResourceException(e);
         }
 
-        copyProperties0(type.getSuperclass(), from, to);
+        return (result.isEmpty() ? NO_ACCESSORS : result.toArray(new PropertyAccessor[result.size()]));
     }
 
     private boolean isIncluded(Field f) {
-        if ((inclusionAnnotations == null && exclusionAnnotations == null) || f.getAnnotations().length == 0) {
+        Set<Class<? extends Annotation>> inclusions = inclusionAnnotations;
+        Set<Class<? extends Annotation>> exclusions = exclusionAnnotations;
+        Annotation[] annotations = f.getAnnotations();
+
+        if ((inclusions == null && exclusions == null) || annotations.length == 0) {
             return ((f.getModifiers() & IGNORED_FIELD_MODIFIERS) == 0);
         }
 
-        for (Annotation annotation : f.getAnnotations()) {
+        for (Annotation annotation : annotations) {
             Class<? extends Annotation> type = annotation.annotationType();
 
-            if (inclusionAnnotations != null && inclusionAnnotations.contains(type)) {
+            if (inclusions != null && inclusions.contains(type)) {
                 return true;
             }
 
-            if (exclusionAnnotations != null && exclusionAnnotations.contains(type)) {
+            if (exclusions != null && exclusions.contains(type)) {
                 return false;
             }
         }
@@ -107,7 +230,13 @@ public abstract class AbstractResourceFactoryStrategy implements ResourceFactory
         return ((f.getModifiers() & IGNORED_FIELD_MODIFIERS) == 0);
     }
 
-    private Field[] getDeclaredFields(Class<?> type) {
-        return type.getDeclaredFields();
+    private static Set<Class<? extends Annotation>> union(Set<Class<? extends Annotation>> existing,
+        Class<? extends Annotation>[] annotations) {
+        Set<Class<? extends Annotation>> result = (existing == null ? new HashSet<Class<? extends Annotation>>()
+                                                                    : new HashSet<Class<? extends Annotation>>(
+                                                                        existing));
+        result.addAll(Arrays.asList(annotations));
+
+        return result;
     }
 }
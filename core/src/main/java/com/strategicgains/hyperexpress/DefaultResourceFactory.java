@@ -1,5 +1,6 @@
 package com.strategicgains.hyperexpress;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -10,13 +11,31 @@ public class DefaultResourceFactory implements ResourceFactory {
     private Map<String, ResourceFactoryStrategy> factoryStrategies = new HashMap<String, ResourceFactoryStrategy>();
 
     public Resource createResource(Object object, String contentType) {
-        ResourceFactoryStrategy strategy = factoryStrategies.get(contentType);
+        return getStrategy(contentType).createResource(object);
+    }
 
-        if (strategy == null) {
-            throw new ResourceException("Cannot create resource for content type: " + contentType);
+    /**
+     * Creates a resource containing only the projected fields. Strategies extending AbstractResourceFactoryStrategy
+     * never read the other fields; for any other strategy they are copied and then removed.
+     */
+    public Resource createResource(Object object, String contentType, Projection projection) {
+        ResourceFactoryStrategy strategy = getStrategy(contentType);
+
+        if (strategy instanceof AbstractResourceFactoryStrategy) {
+            return ((AbstractResourceFactoryStrategy) strategy).createResource(object, projection);
+        }
+
+        Resource r = strategy.createResource(object);
+
+        if (projection != null && !projection.isAllFields()) {
+            for (String name : new ArrayList<String>(r.getProperties().keySet())) {
+                if (!projection.includesField(name)) {
+                    r.removeProperty(name);
+                }
+            }
         }
 
-        return strategy.createResource(object);
+        return r;
     }
 
     public DefaultResourceFactory addFactoryStrategy(ResourceFactoryStrategy strategy, String contentType) {
@@ -38,4 +57,14 @@ public class DefaultResourceFactory implements ResourceFactory {
 
         return strategy.getResourceType();
     }
+
+    private ResourceFactoryStrategy getStrategy(String contentType) {
+        ResourceFactoryStrategy strategy = factoryStrategies.get(contentType);
+
+        if (strategy == null) {
+            throw new ResourceException("Cannot create resource for content type: " + contentType);
+        }
+
+        return strategy;
+    }
 }
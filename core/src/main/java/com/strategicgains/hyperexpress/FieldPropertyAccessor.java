@@ -0,0 +1,35 @@
+package com.strategicgains.hyperexpress;
+
+import java.lang.reflect.Field;
+
+import com.strategicgains.hyperexpress.exception.ResourceException;
+
+/**
+ * A {@link PropertyAccessor} that reads the field reflectively. The field is made accessible once, when the
+ * accessor is created.
+ */
+public class FieldPropertyAccessor implements PropertyAccessor {
+    private final Field field;
+
+    public FieldPropertyAccessor(Field field) {
+        super();
+        field.setAccessible(true);
+        this.field = field;
+    }
+
+    public String getName() {
+        return field.getName();
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public Object get(Object from) {
+        try {
+            return field.get(from);
+        } catch (IllegalAccessException e) {
+            throw new ResourceException(e);
+        }
+    }
+}
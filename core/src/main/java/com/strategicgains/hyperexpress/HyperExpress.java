@@ -1,30 +1,36 @@
 package com.strategicgains.hyperexpress;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 
+import com.strategicgains.hyperexpress.builder.AbstractTokenResolver;
+import com.strategicgains.hyperexpress.builder.CompiledRelationships;
 import com.strategicgains.hyperexpress.builder.DefaultBuilderFactory;
-import com.strategicgains.hyperexpress.builder.LinkBuilder;
+import com.strategicgains.hyperexpress.builder.DefaultTokenResolver;
+import com.strategicgains.hyperexpress.builder.LinkPlan;
 import com.strategicgains.hyperexpress.builder.RelationshipDefinition;
 import com.strategicgains.hyperexpress.builder.TokenBinder;
 import com.strategicgains.hyperexpress.builder.TokenResolver;
-import com.strategicgains.hyperexpress.domain.Link;
 import com.strategicgains.hyperexpress.domain.Resource;
 
 public class HyperExpress {
     private static final HyperExpress INSTANCE = new HyperExpress();
 
     private DefaultResourceFactory resourceFactory;
-    private RelationshipDefinition relationshipDefinition;
+    private volatile RelationshipDefinition relationshipDefinition;
     private ThreadLocal<TokenResolver> tokenResolver;
+    private Map<String, String> defaultBindings;
+    private volatile DefaultTokenResolver defaultTokenResolver;
     private BuilderFactory builderFactory;
 
     private HyperExpress() {
         resourceFactory = new DefaultResourceFactory();
         relationshipDefinition = new RelationshipDefinition();
         tokenResolver = new ThreadLocal<TokenResolver>();
+        defaultBindings = new LinkedHashMap<String, String>();
         builderFactory = new DefaultBuilderFactory();
     }
 
@@ -37,7 +43,15 @@ public class HyperExpress {
     }
 
     public static Resource createResource(Object object, String contentType) {
-        return INSTANCE._createResource(object, contentType);
+        return INSTANCE._createResource(object, contentType, Projection.ALL);
+    }
+
+    /**
+     * Creates a resource containing only the projected fields and links. Fields outside the projection are never
+     * read from the object and links for rels outside it are never built.
+     */
+    public static Resource createResource(Object object, String contentType, Projection projection) {
+        return INSTANCE._createResource(object, contentType, projection);
     }
 
     public static Class<? extends Resource> getResourceType(String contentType) {
@@ -46,12 +60,28 @@ public class HyperExpress {
 
     public static Resource createCollectionResource(Collection<?> components, Class<?> componentType,
         String contentType) {
-        return INSTANCE._createCollectionResource(components, componentType, contentType);
+        return INSTANCE._createCollectionResource(components, componentType, contentType, Projection.ALL);
     }
 
     public static Resource createCollectionResource(Collection<?> components, Class<?> componentType,
         String componentRel, String contentType) {
-        return INSTANCE._createCollectionResource(components, componentType, componentRel, contentType);
+        return INSTANCE._createCollectionResource(components, componentType, componentRel, contentType,
+            Projection.ALL);
+    }
+
+    /**
+     * Creates a collection resource whose embedded components contain only the projected fields. The projection's
+     * rels, if any, apply to both the collection's links and the components' links.
+     */
+    public static Resource createCollectionResource(Collection<?> components, Class<?> componentType,
+        String contentType, Projection projection) {
+        return INSTANCE._createCollectionResource(components, componentType, contentType, projection);
+    }
+
+    public static Resource createCollectionResource(Collection<?> components, Class<?> componentType,
+        String componentRel, String contentType, Projection projection) {
+        return INSTANCE._createCollectionResource(components, componentType, componentRel, contentType,
+            projection);
     }
 
     public static RelationshipDefinition relationships() {
@@ -62,14 +92,39 @@ public class HyperExpress {
         INSTANCE.relationshipDefinition = relationships;
     }
 
+    /**
+     * Returns the calling thread's token resolver, creating it if necessary.
+     */
+    public static TokenResolver tokenResolver() {
+        return INSTANCE._acquireTokenResolver();
+    }
+
     public static TokenResolver bind(String token, String value) {
         return INSTANCE._bindToken(token, value);
     }
 
+    /**
+     * Binds a token for every thread. Default bindings are shared, read-only, by each thread's token resolver and
+     * are overridden by tokens bound with {@link #bind(String, String)}. Changes are seen immediately by every
+     * thread, including those whose token resolver already exists. Only token resolvers of the default type
+     * (DefaultTokenResolver) fall through to the default bindings.
+     */
+    public static void bindDefault(String token, String value) {
+        INSTANCE._bindDefault(token, value);
+    }
+
+    public static void clearDefaultBindings() {
+        INSTANCE._clearDefaultBindings();
+    }
+
     public static <T> void tokenBinder(TokenBinder<T> callback) {
         INSTANCE._addTokenBinder(callback);
     }
 
+    public static <T> void tokenBinder(Class<T> type, TokenBinder<? super T> callback) {
+        INSTANCE._addTokenBinder(type, callback);
+    }
+
     public static void clearTokenBindings() {
         INSTANCE._clearTokenBindings();
     }
@@ -78,9 +133,15 @@ public class HyperExpress {
         resourceFactory.addFactoryStrategy(factoryStrategy, contentType);
     }
 
-    private Resource _createResource(Object object, String contentType) {
-        Resource r = resourceFactory.createResource(object, contentType);
-        _assignResourceLinks(r, object, (object == null ? null : object.getClass()));
+    private Resource _createResource(Object object, String contentType, Projection projection) {
+        return _createResource(object, contentType, _relationships(), _acquireTokenResolver(), projection);
+    }
+
+    private Resource _createResource(Object object, String contentType, CompiledRelationships relationships,
+        TokenResolver tokenResolver, Projection projection) {
+        Resource r = resourceFactory.createResource(object, contentType, projection);
+        _assignResourceLinks(r, object, relationships.getLinkPlan(object == null ? null : object.getClass()),
+            tokenResolver, projection);
 
         return r;
     }
@@ -89,37 +150,35 @@ public class HyperExpress {
         return resourceFactory.getResourceType(contentType);
     }
 
-    private Resource _createCollectionResource(Collection<?> components, Class<?> componentType, String contentType) {
-        String componentRel = relationshipDefinition.getCollectionRelFor(componentType);
+    private Resource _createCollectionResource(Collection<?> components, Class<?> componentType, String contentType,
+        Projection projection) {
+        String componentRel = _relationships().getCollectionRelFor(componentType);
 
-        return _createCollectionResource(components, componentType, componentRel, contentType);
+        return _createCollectionResource(components, componentType, componentRel, contentType, projection);
     }
 
     private Resource _createCollectionResource(Collection<?> components, Class<?> componentType, String componentRel,
-        String contentType) {
+        String contentType, Projection projection) {
+        CompiledRelationships relationships = _relationships();
+        TokenResolver tokenResolver = _acquireTokenResolver();
         Resource root = resourceFactory.createResource(null, contentType);
-        Collection<LinkBuilder> templates = relationshipDefinition.getCollectionLinkBuilders(componentType);
-
-        for (Link link : _resolveUrlTokens(templates, null, _acquireTokenResolver())) {
-            root.addLink(link, relationshipDefinition.isCollectionArrayRel(componentType, link.getRel()));
-        }
-
-        root.addNamespaces(relationshipDefinition.getNamespaces().values());
+        LinkPlan plan = relationships.getCollectionLinkPlan(componentType);
+        plan.addLinks(root, null, tokenResolver, projection);
+        root.addNamespaces(plan.getNamespaces());
 
         Resource childResource = null;
 
         if (components == null || components.isEmpty()) {
             root.addResources(componentRel, Collections.EMPTY_LIST);
         } else {
-            boolean isResourceCollection = false;
-
             for (Object component : components) {
-                if (isResourceCollection || Resource.class.isAssignableFrom(component.getClass())) {
-                    isResourceCollection = true;
+                if (component instanceof Resource) {
                     childResource = (Resource) component;
-                    _assignResourceLinks(childResource, component, componentType);
+                    _assignResourceLinks(childResource, component, relationships.getLinkPlan(componentType),
+                        tokenResolver, projection);
                 } else {
-                    childResource = _createResource(component, contentType);
+                    childResource = _createResource(component, contentType, relationships, tokenResolver,
+                        projection);
                 }
 
                 root.addResource(componentRel, childResource, true);
@@ -133,10 +192,45 @@ public class HyperExpress {
         return _acquireTokenResolver().bind(token, value);
     }
 
+    private synchronized void _bindDefault(String token, String value) {
+        Map<String, String> bindings = new LinkedHashMap<String, String>(defaultBindings);
+
+        if (value == null) {
+            bindings.remove(token);
+        } else {
+            bindings.put(token, value);
+        }
+
+        _setDefaultBindings(bindings);
+    }
+
+    private synchronized void _clearDefaultBindings() {
+        _setDefaultBindings(new LinkedHashMap<String, String>());
+    }
+
+    private void _setDefaultBindings(Map<String, String> bindings) {
+        DefaultTokenResolver defaults = null;
+
+        if (!bindings.isEmpty()) {
+            defaults = new DefaultTokenResolver();
+
+            for (Entry<String, String> binding : bindings.entrySet()) {
+                defaults.bind(binding.getKey(), binding.getValue());
+            }
+        }
+
+        defaultBindings = bindings;
+        defaultTokenResolver = defaults;
+    }
+
     private <T> TokenResolver _addTokenBinder(TokenBinder<T> callback) {
         return _acquireTokenResolver().binder(callback);
     }
 
+    private <T> TokenResolver _addTokenBinder(Class<T> type, TokenBinder<? super T> callback) {
+        return AbstractTokenResolver.adapt(_acquireTokenResolver()).binder(type, callback);
+    }
+
     private void _clearTokenBindings() {
         TokenResolver tr = _getTokenResolver();
 
@@ -151,6 +245,11 @@ public class HyperExpress {
 
         if (tr == null) {
             tr = builderFactory.newTokenResolver();
+
+            if (tr != null && tr.getClass() == DefaultTokenResolver.class) {
+                tr = new RequestTokenResolver();
+            }
+
             tokenResolver.set(tr);
         }
 
@@ -161,30 +260,26 @@ public class HyperExpress {
         return tokenResolver.get();
     }
 
-    private List<Link> _resolveUrlTokens(Collection<LinkBuilder> linkBuilders, Object object,
-        TokenResolver tokenResolver) {
-        List<Link> links = new ArrayList<>(linkBuilders.size());
-
-        for (LinkBuilder linkBuilder : linkBuilders) {
-            Link link = linkBuilder.build(object, tokenResolver);
-
-            if (link != null) {
-                links.add(link);
-            }
+    private void _assignResourceLinks(Resource r, Object object, LinkPlan plan, TokenResolver tokenResolver,
+        Projection projection) {
+        if (object != null) {
+            plan.addLinks(r, object, tokenResolver, projection);
         }
 
-        return links;
+        r.addNamespaces(plan.getNamespaces());
     }
 
-    private void _assignResourceLinks(Resource r, Object object, Class<?> objectType) {
-        if (object != null) {
-            Collection<LinkBuilder> linkBuilders = relationshipDefinition.getLinkBuilders(objectType);
+    private CompiledRelationships _relationships() {
+        return relationshipDefinition.compile();
+    }
 
-            for (Link link : _resolveUrlTokens(linkBuilders, object, _acquireTokenResolver())) {
-                r.addLink(link, relationshipDefinition.isArrayRel(objectType, link.getRel()));
-            }
+    /**
+     * A thread's token resolver. It falls through to the default bindings current at each lookup, not to those in
+     * place when it was created.
+     */
+    private static class RequestTokenResolver extends DefaultTokenResolver {
+        protected DefaultTokenResolver parent() {
+            return INSTANCE.defaultTokenResolver;
         }
-
-        r.addNamespaces(relationshipDefinition.getNamespaces().values());
     }
 }
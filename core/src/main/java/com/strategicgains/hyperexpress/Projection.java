@@ -0,0 +1,107 @@
+package com.strategicgains.hyperexpress;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * An immutable sparse fieldset: the properties to copy into a resource and, optionally, the link rels to build.
+ * Fields that are not requested are never read from the domain object, and link builders for rels that are not
+ * requested are skipped. A null field or rel set means "all".
+ */
+public final class Projection {
+    public static final Projection ALL = new Projection(null, null);
+
+    private static final String LINKS_SELECTOR = "_links.";
+
+    private final Set<String> fields;
+    private final Set<String> rels;
+
+    private Projection(Set<String> fields, Set<String> rels) {
+        super();
+        this.fields = fields;
+        this.rels = rels;
+    }
+
+    public static Projection fields(String... fields) {
+        return fields(Arrays.asList(fields));
+    }
+
+    public static Projection fields(Collection<String> fields) {
+        return new Projection(toSet(fields), null);
+    }
+
+    /**
+     * Parses a comma-delimited list of field names and link rel selectors, such as the value of a
+     * '?fields=id,name,_links.self' query-string parameter. An entry starting with '_links.' selects the rel that
+     * follows; everything else is a field name. If no field names are given all fields are included, and if no rel
+     * selectors are given all rels are. A null or blank value returns {@link #ALL}.
+     */
+    public static Projection parse(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return ALL;
+        }
+
+        Set<String> names = new LinkedHashSet<String>();
+        Set<String> rels = new LinkedHashSet<String>();
+
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+
+            if (trimmed.startsWith(LINKS_SELECTOR)) {
+                String rel = trimmed.substring(LINKS_SELECTOR.length()).trim();
+
+                if (!rel.isEmpty()) {
+                    rels.add(rel);
+                }
+            } else if (!trimmed.isEmpty()) {
+                names.add(trimmed);
+            }
+        }
+
+        return new Projection((names.isEmpty() ? null : Collections.unmodifiableSet(names)),
+            (rels.isEmpty() ? null : Collections.unmodifiableSet(rels)));
+    }
+
+    public Projection rels(String... rels) {
+        return rels(Arrays.asList(rels));
+    }
+
+    public Projection rels(Collection<String> rels) {
+        return new Projection(fields, toSet(rels));
+    }
+
+    public boolean includesField(String name) {
+        return (fields == null || fields.contains(name));
+    }
+
+    public boolean includesRel(String rel) {
+        return (rels == null || rels.contains(rel));
+    }
+
+    public boolean isAllFields() {
+        return (fields == null);
+    }
+
+    public boolean isAllRels() {
+        return (rels == null);
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    public Set<String> getRels() {
+        return rels;
+    }
+
+    public String toString() {
+        return "Projection{fields=" + (fields == null ? "*" : fields) + ", rels=" + (rels == null ? "*" : rels) + "}";
+    }
+
+    private static Set<String> toSet(Collection<String> values) {
+        return (values == null ? null : Collections.unmodifiableSet(new LinkedHashSet<String>(values)));
+    }
+}
@@ -0,0 +1,15 @@
+package com.strategicgains.hyperexpress;
+
+import java.lang.reflect.Field;
+
+/**
+ * Reads one field of a domain object. Accessors are prepared once per class by
+ * {@link AbstractResourceFactoryStrategy} and reused for every object of that class.
+ */
+public interface PropertyAccessor {
+    String getName();
+
+    Field getField();
+
+    Object get(Object from);
+}
@@ -0,0 +1,11 @@
+package com.strategicgains.hyperexpress;
+
+import com.strategicgains.hyperexpress.domain.Resource;
+
+/**
+ * Copies the properties of a domain object into a resource without reflection. Implementations are generated at
+ * compile time for classes annotated with {@link com.strategicgains.hyperexpress.annotation.GenerateCopier}.
+ */
+public interface ResourceCopier<T> {
+    void copyProperties(T from, Resource to);
+}
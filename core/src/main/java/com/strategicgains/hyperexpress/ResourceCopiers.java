@@ -0,0 +1,98 @@
+package com.strategicgains.hyperexpress;
+
+import com.strategicgains.hyperexpress.annotation.GenerateCopier;
+import com.strategicgains.hyperexpress.builder.TokenBinder;
+import com.strategicgains.hyperexpress.builder.TokenResolver;
+import com.strategicgains.hyperexpress.exception.ResourceException;
+
+/**
+ * Locates the compile-time generated {@link ResourceCopier} and TokenBinder for a class. Generated classes live in
+ * the domain class's package and are named after its binary name, with '$' replaced by '_', plus a suffix.
+ */
+public final class ResourceCopiers {
+    public static final String COPIER_SUFFIX = "_ResourceCopier";
+    public static final String BINDER_SUFFIX = "_TokenBinder";
+
+    private static final ClassValue<ResourceCopier<?>> COPIERS = new ClassValue<ResourceCopier<?>>() {
+        protected ResourceCopier<?> computeValue(Class<?> type) {
+            return (ResourceCopier<?>) load(type, COPIER_SUFFIX);
+        }
+    };
+
+    private static final ClassValue<TokenBinder<?>> BINDERS = new ClassValue<TokenBinder<?>>() {
+        protected TokenBinder<?> computeValue(Class<?> type) {
+            TokenBinder<?> binder = (TokenBinder<?>) load(type, BINDER_SUFFIX);
+
+            return (binder == null ? binderFor(type.getSuperclass()) : binder);
+        }
+    };
+
+    private static final TokenBinder<Object> GENERATED_BINDERS = new TokenBinder<Object>() {
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        public void bind(Object object, TokenResolver resolver) {
+            TokenBinder binder = binderFor(object.getClass());
+
+            if (binder != null) {
+                binder.bind(object, resolver);
+            }
+        }
+    };
+
+    private ResourceCopiers() {
+        super();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ResourceCopier<T> forClass(Class<T> type) {
+        return (ResourceCopier<T>) COPIERS.get(type);
+    }
+
+    /**
+     * Returns the generated TokenBinder of the nearest class, starting with the type itself, that has one, or null.
+     * Its tokens are bound from the fields that class annotates with
+     * {@link com.strategicgains.hyperexpress.annotation.TokenBinding}.
+     */
+    public static TokenBinder<?> binderFor(Class<?> type) {
+        return (type == null ? null : BINDERS.get(type));
+    }
+
+    /**
+     * Returns a TokenBinder that applies the generated binder of each object's class (see {@link #binderFor(Class)}),
+     * for registering with a TokenResolver, e.g. HyperExpress.tokenBinder(Object.class,
+     * ResourceCopiers.generatedBinders()). Binders registered after it can override the tokens it binds.
+     */
+    public static TokenBinder<Object> generatedBinders() {
+        return GENERATED_BINDERS;
+    }
+
+    public static String copierClassName(String binaryName) {
+        return generatedName(binaryName, COPIER_SUFFIX);
+    }
+
+    public static String binderClassName(String binaryName) {
+        return generatedName(binaryName, BINDER_SUFFIX);
+    }
+
+    private static String generatedName(String binaryName, String suffix) {
+        int lastDot = binaryName.lastIndexOf('.');
+
+        return binaryName.substring(0, lastDot + 1) + binaryName.substring(lastDot + 1).replace('$', '_') + suffix;
+    }
+
+    private static Object load(Class<?> type, String suffix) {
+        if (!type.isAnnotationPresent(GenerateCopier.class)) {
+            return null;
+        }
+
+        try {
+            Class<?> generated = Class.forName(generatedName(type.getName(), suffix), true, type.getClassLoader());
+
+            return generated.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new ResourceException("Cannot instantiate generated " + suffix.substring(1) + " for " +
+                type.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.strategicgains.hyperexpress.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a domain class for the HyperExpress annotation processor, which generates a
+ * {@link com.strategicgains.hyperexpress.ResourceCopier} for it at compile time and, if any of its fields are
+ * annotated with {@link TokenBinding}, a typed {@link com.strategicgains.hyperexpress.builder.TokenBinder}. Both are
+ * found by type at runtime: the copier by AbstractResourceFactoryStrategy, the binder by DefaultTokenResolver.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface GenerateCopier {
+}
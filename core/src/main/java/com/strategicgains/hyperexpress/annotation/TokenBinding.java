@@ -0,0 +1,18 @@
+package com.strategicgains.hyperexpress.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds the annotated field's value to the named URL token in the TokenBinder generated for a
+ * {@link GenerateCopier} class.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface TokenBinding {
+    String value();
+}
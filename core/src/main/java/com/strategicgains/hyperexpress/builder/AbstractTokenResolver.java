@@ -0,0 +1,354 @@
+package com.strategicgains.hyperexpress.builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.strategicgains.hyperexpress.util.CompiledTemplate;
+import com.strategicgains.hyperexpress.util.Strings;
+import com.strategicgains.hyperexpress.util.UriTemplate;
+
+/**
+ * A base class for TokenResolvers that adds the operations introduced after the TokenResolver interface was
+ * published, each implemented in terms of the interface methods. The library calls them through
+ * {@link #adapt(TokenResolver)}, so existing TokenResolver implementations keep working unchanged; extending this
+ * class (as DefaultTokenResolver does) lets an implementation override them with faster versions.
+ */
+public abstract class AbstractTokenResolver implements TokenResolver {
+    /**
+     * Returns the resolver itself if it extends AbstractTokenResolver, otherwise an adapter delegating to it.
+     */
+    public static AbstractTokenResolver adapt(TokenResolver tokenResolver) {
+        if (tokenResolver == null || tokenResolver instanceof AbstractTokenResolver) {
+            return (AbstractTokenResolver) tokenResolver;
+        }
+
+        return new Adapter(tokenResolver);
+    }
+
+    /**
+     * Returns the resolver's scope for the object (see {@link #forObject(Object)}), or the resolver itself if either
+     * is null.
+     */
+    public static TokenResolver scopeFor(TokenResolver tokenResolver, Object object) {
+        if (tokenResolver == null || object == null) {
+            return tokenResolver;
+        }
+
+        return adapt(tokenResolver).forObject(object);
+    }
+
+    /**
+     * Adds a token binder that is called only for instances of the given type. This default registers it through
+     * {@link #binder(TokenBinder)}, wrapped in a binder that skips objects of other types.
+     */
+    public <T> TokenResolver binder(Class<T> type, TokenBinder<? super T> callback) {
+        if (callback == null) {
+            return this;
+        }
+
+        if (type == null) {
+            throw new NullPointerException("TokenBinder type cannot be null");
+        }
+
+        return binder(new TypedBinder<T>(type, callback));
+    }
+
+    /**
+     * Returns a child scope of this resolver. Lookups fall through to this resolver; bindings made in the child are
+     * discarded with it. This default resolves the child's own bindings first and passes the rest to
+     * {@link #resolve(String)}.
+     */
+    public TokenResolver newScope() {
+        return new Scope(this, null);
+    }
+
+    /**
+     * Returns a child scope with the token binders applicable to the given object already applied. This default
+     * returns a scope that resolves through {@link #resolve(String, Object)} with the object on every call.
+     */
+    public TokenResolver forObject(Object object) {
+        return (object == null ? this : new Scope(this, object));
+    }
+
+    /**
+     * Resolves the pattern directly into the buffer. Returns true if every token was bound; otherwise returns false
+     * and leaves the buffer as it was.
+     */
+    public boolean resolveTo(StringBuilder sb, String pattern) {
+        String resolved = resolve(pattern);
+
+        if (Strings.hasToken(resolved)) {
+            return false;
+        }
+
+        sb.append(resolved);
+
+        return true;
+    }
+
+    /**
+     * Like {@link #resolveMulti(String)}, but appends the fully-bound results to the buffer joined by the separator.
+     * Returns false, leaving the buffer as it was, if the first result has unbound tokens.
+     */
+    public boolean resolveMultiTo(StringBuilder sb, String pattern, String separator) {
+        String[] resolved = resolveMulti(pattern);
+
+        if (resolved.length == 0 || Strings.hasToken(resolved[0])) {
+            return false;
+        }
+
+        sb.append(resolved[0]);
+
+        for (int i = 1; i < resolved.length; ++i) {
+            if (!Strings.hasToken(resolved[i])) {
+                sb.append(separator).append(resolved[i]);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Resolves a template the caller has already compiled. DefaultTokenResolver renders it directly; this default
+     * resolves its pattern.
+     */
+    String resolve(CompiledTemplate template) {
+        return resolve(template.pattern());
+    }
+
+    boolean resolveTo(StringBuilder sb, CompiledTemplate template) {
+        return resolveTo(sb, template.pattern());
+    }
+
+    boolean resolveMultiTo(StringBuilder sb, CompiledTemplate template, String separator) {
+        return resolveMultiTo(sb, template.pattern(), separator);
+    }
+
+    /**
+     * Returns the bound tokens as URI Template variables: a String, or a List for multi-valued tokens. This default
+     * looks each variable up by resolving "{name}", so it sees single-word token names only.
+     */
+    UriTemplate.Variables variables() {
+        return new UriTemplate.Variables() {
+            public Object get(String name) {
+                String[] values = resolveMulti("{" + name + "}");
+
+                if (values.length == 0 || Strings.hasToken(values[0])) {
+                    return null;
+                }
+
+                return (values.length == 1 ? values[0] : Arrays.asList(values));
+            }
+        };
+    }
+
+    /**
+     * Expands the RFC 6570 URI Template with the bound tokens, as looked up by variables().
+     */
+    public String expand(String uriTemplate) {
+        return UriTemplate.compile(uriTemplate).expand(variables());
+    }
+
+    public String expand(String uriTemplate, final Object object) {
+        return UriTemplate.compile(uriTemplate).expand(new UriTemplate.Variables() {
+                public Object get(String name) {
+                    String value = resolve("{" + name + "}", object);
+
+                    return (Strings.hasToken(value) ? null : value);
+                }
+            });
+    }
+
+    private static class TypedBinder<T> implements TokenBinder<Object> {
+        private final Class<T> type;
+        private final TokenBinder<? super T> callback;
+
+        TypedBinder(Class<T> type, TokenBinder<? super T> callback) {
+            super();
+            this.type = type;
+            this.callback = callback;
+        }
+
+        public void bind(Object object, TokenResolver resolver) {
+            if (type.isInstance(object)) {
+                callback.bind(type.cast(object), resolver);
+            }
+        }
+    }
+
+    /**
+     * A child scope over a parent resolver that only implements the interface methods. Tokens bound in the scope
+     * are resolved first and the rest by the parent (with the scope's object, if any). Removing a token in the scope
+     * cannot hide the parent's binding for it.
+     */
+    private static class Scope extends AbstractTokenResolver {
+        private final TokenResolver parent;
+        private final Object object;
+        private final DefaultTokenResolver local = new DefaultTokenResolver();
+
+        Scope(TokenResolver parent, Object object) {
+            super();
+            this.parent = parent;
+            this.object = object;
+        }
+
+        public TokenResolver bind(String tokenName, String value) {
+            local.bind(tokenName, value);
+
+            return this;
+        }
+
+        public TokenResolver bind(String tokenName, String... multiValues) {
+            local.bind(tokenName, multiValues);
+
+            return this;
+        }
+
+        public TokenResolver bind(String tokenName, List<String> multiValues) {
+            local.bind(tokenName, multiValues);
+
+            return this;
+        }
+
+        public void clear() {
+            local.clear();
+        }
+
+        public void remove(String tokenName) {
+            local.remove(tokenName);
+        }
+
+        public <T> TokenResolver binder(TokenBinder<T> callback) {
+            local.binder(callback);
+
+            return this;
+        }
+
+        public void clearBinders() {
+            local.clearBinders();
+        }
+
+        public void reset() {
+            local.reset();
+        }
+
+        public String resolve(String pattern) {
+            return resolve(pattern, null);
+        }
+
+        public String[] resolveMulti(String pattern) {
+            List<String> resolved = new ArrayList<String>();
+
+            for (String partial : local.resolveMulti(pattern)) {
+                Collections.addAll(resolved, parent.resolveMulti(resolveInParent(partial, object)));
+            }
+
+            return resolved.toArray(new String[resolved.size()]);
+        }
+
+        public String resolve(String pattern, Object object) {
+            Object scoped = (object == null ? this.object : object);
+
+            return resolveInParent(local.resolve(pattern, scoped), scoped);
+        }
+
+        public Collection<String> resolve(Collection<String> patterns) {
+            List<String> resolved = new ArrayList<String>(patterns.size());
+
+            for (String pattern : patterns) {
+                resolved.add(resolve(pattern));
+            }
+
+            return resolved;
+        }
+
+        public Collection<String> resolve(Collection<String> patterns, Object object) {
+            List<String> resolved = new ArrayList<String>(patterns.size());
+
+            for (String pattern : patterns) {
+                resolved.add(resolve(pattern, object));
+            }
+
+            return resolved;
+        }
+
+        private String resolveInParent(String pattern, Object object) {
+            return (object == null ? parent.resolve(pattern) : parent.resolve(pattern, object));
+        }
+    }
+
+    /**
+     * Delegates the TokenResolver methods to a resolver that does not extend AbstractTokenResolver.
+     */
+    private static class Adapter extends AbstractTokenResolver {
+        private final TokenResolver delegate;
+
+        Adapter(TokenResolver delegate) {
+            super();
+            this.delegate = delegate;
+        }
+
+        public TokenResolver bind(String tokenName, String value) {
+            delegate.bind(tokenName, value);
+
+            return this;
+        }
+
+        public TokenResolver bind(String tokenName, String... multiValues) {
+            delegate.bind(tokenName, multiValues);
+
+            return this;
+        }
+
+        public TokenResolver bind(String tokenName, List<String> multiValues) {
+            delegate.bind(tokenName, multiValues);
+
+            return this;
+        }
+
+        public void clear() {
+            delegate.clear();
+        }
+
+        public void remove(String tokenName) {
+            delegate.remove(tokenName);
+        }
+
+        public <T> TokenResolver binder(TokenBinder<T> callback) {
+            delegate.binder(callback);
+
+            return this;
+        }
+
+        public void clearBinders() {
+            delegate.clearBinders();
+        }
+
+        public void reset() {
+            delegate.reset();
+        }
+
+        public String resolve(String pattern) {
+            return delegate.resolve(pattern);
+        }
+
+        public String[] resolveMulti(String pattern) {
+            return delegate.resolveMulti(pattern);
+        }
+
+        public String resolve(String pattern, Object object) {
+            return delegate.resolve(pattern, object);
+        }
+
+        public Collection<String> resolve(Collection<String> patterns) {
+            return delegate.resolve(patterns);
+        }
+
+        public Collection<String> resolve(Collection<String> patterns, Object object) {
+            return delegate.resolve(patterns, object);
+        }
+    }
+}
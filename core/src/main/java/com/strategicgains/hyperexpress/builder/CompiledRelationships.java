@@ -0,0 +1,143 @@
+package com.strategicgains.hyperexpress.builder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.strategicgains.hyperexpress.domain.Namespace;
+import com.strategicgains.hyperexpress.util.Strings;
+
+/**
+ * An immutable, safely-publishable snapshot of a {@link RelationshipDefinition}. All state is captured at
+ * construction into final fields, and per-class {@link LinkPlan}s are memoized in {@link ClassValue}s, so reads
+ * need no locking and no string concatenation.
+ * <p/>
+ * DefaultLinkBuilders and DefaultConditionalLinkBuilders are copied into the snapshot, with their templates
+ * compiled up front, so later changes to the definition do not reach it. Other LinkBuilder implementations cannot
+ * be copied and are shared with the definition.
+ */
+public final class CompiledRelationships {
+    private static final String COLLECTION_SUFFIX = ".Collection";
+
+    private final Map<String, Namespace> namespaces;
+    private final List<Namespace> namespaceList;
+    private final Map<String, LinkPlan> plansByName;
+    private final Map<String, String> relNamesByName;
+    private final LinkPlan emptyPlan;
+
+    private final ClassValue<LinkPlan> forClass = new ClassValue<LinkPlan>() {
+        protected LinkPlan computeValue(Class<?> type) {
+            if (type.isArray()) {
+                return lookup(type.getComponentType().getName() + COLLECTION_SUFFIX);
+            }
+
+            return lookup(type.getName());
+        }
+    };
+
+    private final ClassValue<LinkPlan> forCollectionOf = new ClassValue<LinkPlan>() {
+        protected LinkPlan computeValue(Class<?> type) {
+            return lookup(type.getName() + COLLECTION_SUFFIX);
+        }
+    };
+
+    private final ClassValue<String> collectionRels = new ClassValue<String>() {
+        protected String computeValue(Class<?> type) {
+            String rel = relNamesByName.get(type.getName() + COLLECTION_SUFFIX);
+
+            return (rel == null ? Strings.pluralize(type.getSimpleName().toLowerCase()) : rel);
+        }
+    };
+
+    CompiledRelationships(Map<String, Namespace> namespaces,
+        Map<String, ? extends List<? extends LinkBuilder>> builders, Map<String, Set<String>> arrayRels,
+        Map<String, String> relNames) {
+        super();
+        Map<String, Namespace> nsCopy = new LinkedHashMap<String, Namespace>(namespaces.size());
+
+        for (Namespace namespace : namespaces.values()) {
+            nsCopy.put(namespace.name(), namespace.clone());
+        }
+
+        this.namespaces = Collections.unmodifiableMap(nsCopy);
+        this.namespaceList = Collections.unmodifiableList(new ArrayList<Namespace>(nsCopy.values()));
+        this.relNamesByName = Collections.unmodifiableMap(new HashMap<String, String>(relNames));
+        this.emptyPlan = new LinkPlan(Collections.<LinkBuilder>emptyList(), null, namespaceList);
+
+        Map<String, LinkPlan> byName = new HashMap<String, LinkPlan>(builders.size());
+
+        for (Map.Entry<String, ? extends List<? extends LinkBuilder>> entry : builders.entrySet()) {
+            List<LinkBuilder> copies = new ArrayList<LinkBuilder>(entry.getValue().size());
+
+            for (LinkBuilder builder : entry.getValue()) {
+                copies.add(copyOf(builder));
+            }
+
+            byName.put(entry.getKey(), new LinkPlan(copies, arrayRels.get(entry.getKey()), namespaceList));
+        }
+
+        this.plansByName = Collections.unmodifiableMap(byName);
+    }
+
+    public LinkPlan getLinkPlan(Class<?> forClass) {
+        return (forClass == null ? emptyPlan : this.forClass.get(forClass));
+    }
+
+    public LinkPlan getCollectionLinkPlan(Class<?> componentType) {
+        return (componentType == null ? emptyPlan : forCollectionOf.get(componentType));
+    }
+
+    public List<LinkBuilder> getLinkBuilders(Class<?> forClass) {
+        return getLinkPlan(forClass).getBuilders();
+    }
+
+    public List<LinkBuilder> getCollectionLinkBuilders(Class<?> componentType) {
+        return getCollectionLinkPlan(componentType).getBuilders();
+    }
+
+    public Map<String, Namespace> getNamespaces() {
+        return namespaces;
+    }
+
+    public List<Namespace> getNamespaceList() {
+        return namespaceList;
+    }
+
+    public boolean isArrayRel(Class<?> objectType, String rel) {
+        return forClass.get(objectType).isArrayRel(rel);
+    }
+
+    public boolean isCollectionArrayRel(Class<?> objectType, String rel) {
+        return forCollectionOf.get(objectType).isArrayRel(rel);
+    }
+
+    public String getCollectionRelFor(Class<?> forClass) {
+        return collectionRels.get(forClass);
+    }
+
+    private static LinkBuilder copyOf(LinkBuilder builder) {
+        DefaultLinkBuilder copy;
+
+        if (builder.getClass() == DefaultConditionalLinkBuilder.class) {
+            copy = new DefaultConditionalLinkBuilder((DefaultConditionalLinkBuilder) builder);
+        } else if (builder.getClass() == DefaultLinkBuilder.class) {
+            copy = new DefaultLinkBuilder((DefaultLinkBuilder) builder);
+        } else {
+            return builder;
+        }
+
+        copy.compile();
+
+        return copy;
+    }
+
+    private LinkPlan lookup(String name) {
+        LinkPlan plan = plansByName.get(name);
+
+        return (plan == null ? emptyPlan : plan);
+    }
+}
@@ -23,6 +23,7 @@ public class DefaultConditionalLinkBuilder extends DefaultLinkBuilder implements
 
     public DefaultConditionalLinkBuilder(DefaultConditionalLinkBuilder builder) {
         super(builder);
+        this.optional = builder.optional;
         this.conditionals = new ArrayList<String>(builder.conditionals);
     }
 
@@ -66,8 +67,12 @@ public class DefaultConditionalLinkBuilder extends DefaultLinkBuilder implements
         return conditionals;
     }
 
-    public Link build(Object object, TokenResolver tokenResolver) {
-        Link link = super.build(object, tokenResolver);
+    Link build(Object object, TokenResolver tokenResolver, boolean isShared) {
+        if (hasConditionals()) {
+            tokenResolver = AbstractTokenResolver.scopeFor(tokenResolver, object);
+        }
+
+        Link link = super.build(object, tokenResolver, isShared);
 
         if (hasConditionals()) {
             for (String conditional : conditionals) {
@@ -5,6 +5,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import com.strategicgains.hyperexpress.domain.Link;
+import com.strategicgains.hyperexpress.domain.LinkAttributes;
 import com.strategicgains.hyperexpress.domain.LinkDefinition;
 
 public class DefaultLinkBuilder implements LinkBuilder {
@@ -12,8 +13,10 @@ public class DefaultLinkBuilder implements LinkBuilder {
     private static final String TITLE = "title";
     private static final String TYPE = "type";
 
-    private UrlBuilder urlBuilder;
+    private DefaultUrlBuilder urlBuilder;
     private Map<String, String> attributes = new HashMap<String, String>();
+    private volatile LinkDefinition constantLink;
+    private volatile LinkAttributes linkAttributes;
 
     public DefaultLinkBuilder() {
         super();
@@ -33,22 +36,27 @@ public class DefaultLinkBuilder implements LinkBuilder {
 
     public DefaultLinkBuilder baseUrl(String url) {
         urlBuilder.baseUrl(url);
+        constantLink = null;
 
         return this;
     }
 
     public DefaultLinkBuilder withQuery(String query) {
         urlBuilder.withQuery(query);
+        constantLink = null;
 
         return this;
     }
 
     public void clearAttributes() {
         attributes.clear();
+        constantLink = null;
+        linkAttributes = null;
     }
 
     public void clearQueries() {
         urlBuilder.clearQueries();
+        constantLink = null;
     }
 
     public String urlPattern() {
@@ -57,6 +65,7 @@ public class DefaultLinkBuilder implements LinkBuilder {
 
     public DefaultLinkBuilder urlPattern(String pattern) {
         urlBuilder.urlPattern(pattern);
+        constantLink = null;
 
         return this;
     }
@@ -96,6 +105,9 @@ public class DefaultLinkBuilder implements LinkBuilder {
             attributes.put(name, value);
         }
 
+        constantLink = null;
+        linkAttributes = null;
+
         return this;
     }
 
@@ -104,11 +116,42 @@ public class DefaultLinkBuilder implements LinkBuilder {
     }
 
     public Link build(TokenResolver tokenResolver) {
-        return createLink(urlBuilder.build(tokenResolver));
+        LinkDefinition link = constantLink();
+
+        return (link == null ? buildLink(null, tokenResolver) : link.clone());
     }
 
     public Link build(Object object, TokenResolver tokenResolver) {
-        return createLink(urlBuilder.build(object, tokenResolver));
+        return build(object, tokenResolver, false);
+    }
+
+    /**
+     * Builds the link. When shared, a token-free builder returns its one immutable instance instead of a mutable
+     * copy; only callers that never hand the link out (see {@link LinkPlan#buildLink}) may ask for that.
+     */
+    Link build(Object object, TokenResolver tokenResolver, boolean isShared) {
+        LinkDefinition link = constantLink();
+
+        if (link == null) {
+            return buildLink(object, tokenResolver);
+        }
+
+        return (isShared ? link : link.clone());
+    }
+
+    /**
+     * Returns true if this builder has no tokens, so it builds the same link every time.
+     */
+    public boolean isConstant() {
+        return (constantLink() != null);
+    }
+
+    /**
+     * Computes the link attributes and, for token-free builders, the constant link now rather than on first use.
+     */
+    void compile() {
+        linkAttributes();
+        constantLink();
     }
 
     public String toString() {
@@ -135,15 +178,29 @@ public class DefaultLinkBuilder implements LinkBuilder {
         return s.toString();
     }
 
-    private Link createLink(String url) {
-        Link link = new LinkDefinition(attributes.get(REL_TYPE), url);
+    private LinkDefinition constantLink() {
+        LinkDefinition link = constantLink;
 
-        for (Entry<String, String> entry : attributes.entrySet()) {
-            if (!entry.getKey().equalsIgnoreCase(REL_TYPE)) {
-                link.set(entry.getKey(), entry.getValue());
-            }
+        if (link == null && urlBuilder.urlPattern() != null && !urlBuilder.hasTokens()) {
+            link = buildLink(null, null).asImmutable();
+            constantLink = link;
         }
 
         return link;
     }
+
+    private LinkDefinition buildLink(Object object, TokenResolver tokenResolver) {
+        return urlBuilder.buildLink(attributes.get(REL_TYPE), linkAttributes(), object, tokenResolver);
+    }
+
+    private LinkAttributes linkAttributes() {
+        LinkAttributes shared = linkAttributes;
+
+        if (shared == null) {
+            shared = LinkAttributes.of(attributes);
+            linkAttributes = shared;
+        }
+
+        return shared;
+    }
 }
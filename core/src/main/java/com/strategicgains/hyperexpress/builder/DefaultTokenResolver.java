@@ -1,32 +1,69 @@
 package com.strategicgains.hyperexpress.builder;
 
 import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
-import com.strategicgains.hyperexpress.util.MapStringFormat;
+import com.strategicgains.hyperexpress.util.CompiledTemplate;
 import com.strategicgains.hyperexpress.util.Strings;
+import com.strategicgains.hyperexpress.util.UriTemplate;
 
-public class DefaultTokenResolver implements TokenResolver {
-    private static final MapStringFormat FORMATTER = new MapStringFormat();
+public class DefaultTokenResolver extends AbstractTokenResolver {
+    private static final TokenBinder<?>[] NO_BINDERS = new TokenBinder<?>[0];
 
-    private Map<String, String> values = new HashMap<String, String>();
-    private Map<String, Set<String>> multiValues = new HashMap<String, Set<String>>();
-    private List<TokenBinder<?>> binders = new ArrayList<TokenBinder<?>>();
+    private static final ClassValue<Class<?>> BINDER_TYPES = new ClassValue<Class<?>>() {
+        protected Class<?> computeValue(Class<?> binderClass) {
+            return findBoundType(binderClass);
+        }
+    };
+
+    private final DefaultTokenResolver parent;
+    private final Object boundObject;
+    private Map<String, String> values;
+    private Map<String, Set<String>> multiValues;
+    private Binders binders;
+    private final Map<String, String> lookup = new ScopeValues();
+    private final UriTemplate.Variables variables = new UriTemplate.Variables() {
+        public Object get(String name) {
+            return getVariable(name);
+        }
+    };
+
+    public DefaultTokenResolver() {
+        super();
+        this.parent = null;
+        this.boundObject = null;
+        this.binders = Binders.NONE;
+    }
+
+    /**
+     * Creates a child scope in constant time. Lookups fall through to the parent; bindings, removals and binders
+     * added to the child are visible only in the child.
+     */
+    private DefaultTokenResolver(DefaultTokenResolver parent, Object object) {
+        super();
+        this.parent = parent;
+        this.boundObject = object;
+        this.binders = parent.binders;
+    }
 
     public DefaultTokenResolver bind(String tokenName, String value) {
         if (value == null) {
             remove(tokenName);
         } else {
-            values.put(tokenName, value);
+            localValues().put(tokenName, value);
         }
 
         return this;
@@ -53,14 +90,28 @@ public class DefaultTokenResolver implements TokenResolver {
         return this;
     }
 
+    /**
+     * Clears the bindings made in this scope. Bindings inherited from a parent scope remain visible.
+     */
     public void clear() {
-        values.clear();
-        multiValues.clear();
+        values = null;
+        multiValues = null;
     }
 
     public void remove(String tokenName) {
-        values.remove(tokenName);
-        multiValues.remove(tokenName);
+        if (values != null) {
+            values.remove(tokenName);
+        }
+
+        if (multiValues != null) {
+            multiValues.remove(tokenName);
+        }
+
+        DefaultTokenResolver parent = parent();
+
+        if (parent != null && parent.lookup.get(tokenName) != null) {
+            localValues().put(tokenName, null);
+        }
     }
 
     public <T> DefaultTokenResolver binder(TokenBinder<T> callback) {
@@ -68,55 +119,162 @@ public class DefaultTokenResolver implements TokenResolver {
             return this;
         }
 
-        binders.add(callback);
+        Class<?> type = BINDER_TYPES.get(callback.getClass());
 
-        return this;
+        if (type == null) {
+            throw new IllegalArgumentException("Cannot determine the bound type of TokenBinder " +
+                callback.getClass().getName() + ". Use binder(Class, TokenBinder) instead.");
+        }
+
+        return addBinder(type, callback);
+    }
+
+    public <T> DefaultTokenResolver binder(Class<T> type, TokenBinder<? super T> callback) {
+        if (callback == null) {
+            return this;
+        }
+
+        if (type == null) {
+            throw new NullPointerException("TokenBinder type cannot be null");
+        }
+
+        return addBinder(type, callback);
     }
 
     public void clearBinders() {
-        binders.clear();
+        binders = Binders.NONE;
+    }
+
+    public DefaultTokenResolver newScope() {
+        return new DefaultTokenResolver(this, null);
+    }
+
+    /**
+     * Returns a child scope with the object's tokens bound by the registered binders for its type.
+     */
+    public DefaultTokenResolver forObject(Object object) {
+        if (object != null && object == boundObject) {
+            return this;
+        }
+
+        DefaultTokenResolver scope = new DefaultTokenResolver(this, object);
+
+        if (object != null) {
+            scope.callTokenBinders(object);
+        }
+
+        return scope;
     }
 
     public void reset() {
         clear();
-        binders.clear();
+        clearBinders();
     }
 
     public String resolve(String pattern) {
-        return FORMATTER.format(pattern, values);
+        return resolve(CompiledTemplate.compile(pattern));
     }
 
     public String[] resolveMulti(String pattern) {
+        CompiledTemplate template = CompiledTemplate.compile(pattern);
         List<String> resolved = new ArrayList<String>();
-        String current = FORMATTER.format(pattern, values);
-        resolved.add(current);
+        resolved.add(template.format(lookup));
+        Map<String, Set<String>> allExtras = collectExtras();
+
+        if (allExtras.isEmpty()) {
+            return resolved.toArray(new String[resolved.size()]);
+        }
 
-        for (Entry<String, Set<String>> entry : multiValues.entrySet()) {
-            String firstValue = values.get(entry.getKey());
-            Iterator<String> nextValue = entry.getValue().iterator();
+        OverrideValues override = new OverrideValues(lookup);
 
-            while (nextValue.hasNext()) {
-                values.put(entry.getKey(), nextValue.next());
+        for (Entry<String, Set<String>> entry : allExtras.entrySet()) {
+            if (!template.tokens().contains(entry.getKey())) {
+                continue;
+            }
+
+            override.tokenName = entry.getKey();
 
-                String bound = FORMATTER.format(pattern, values);
+            for (String value : entry.getValue()) {
+                override.value = value;
+                String bound = template.format(override);
 
                 if (!Strings.hasToken(bound)) {
                     resolved.add(bound);
                 }
             }
+        }
+
+        return resolved.toArray(new String[resolved.size()]);
+    }
+
+    public boolean resolveTo(StringBuilder sb, String pattern) {
+        return resolveTo(sb, CompiledTemplate.compile(pattern));
+    }
+
+    public boolean resolveMultiTo(StringBuilder sb, String pattern, String separator) {
+        return resolveMultiTo(sb, CompiledTemplate.compile(pattern), separator);
+    }
 
-            values.put(entry.getKey(), firstValue);
+    UriTemplate.Variables variables() {
+        return variables;
+    }
+
+    String resolve(CompiledTemplate template) {
+        return template.format(lookup);
+    }
+
+    boolean resolveTo(StringBuilder sb, CompiledTemplate template) {
+        int start = sb.length();
+
+        if (!template.formatTo(sb, lookup)) {
+            sb.setLength(start);
+
+            return false;
         }
 
-        return resolved.toArray(new String[0]);
+        return true;
     }
 
-    public String resolve(String pattern, Object object) {
-        if (object != null) {
-            callTokenBinders(object);
+    boolean resolveMultiTo(StringBuilder sb, CompiledTemplate template, String separator) {
+        int start = sb.length();
+
+        if (!template.formatTo(sb, lookup)) {
+            sb.setLength(start);
+
+            return false;
+        }
+
+        Map<String, Set<String>> allExtras = collectExtras();
+
+        if (allExtras.isEmpty()) {
+            return true;
+        }
+
+        OverrideValues override = new OverrideValues(lookup);
+
+        for (Entry<String, Set<String>> entry : allExtras.entrySet()) {
+            if (!template.tokens().contains(entry.getKey())) {
+                continue;
+            }
+
+            override.tokenName = entry.getKey();
+
+            for (String value : entry.getValue()) {
+                override.value = value;
+                int mark = sb.length();
+                sb.append(separator);
+
+                if (!template.formatTo(sb, override)) {
+                    sb.setLength(mark);
+                }
+            }
         }
 
-        return FORMATTER.format(pattern, values);
+        return true;
+    }
+
+    public String resolve(String pattern, Object object) {
+        return scopeFor(object).resolve(pattern);
     }
 
     public Collection<String> resolve(Collection<String> patterns) {
@@ -130,11 +288,11 @@ public class DefaultTokenResolver implements TokenResolver {
     }
 
     public Collection<String> resolve(Collection<String> patterns, Object object) {
-        if (object != null) {
-            callTokenBinders(object);
-        }
+        return scopeFor(object).resolve(patterns);
+    }
 
-        return resolve(patterns);
+    public String expand(String uriTemplate, Object object) {
+        return scopeFor(object).expand(uriTemplate);
     }
 
     public String toString() {
@@ -143,7 +301,7 @@ public class DefaultTokenResolver implements TokenResolver {
 
         boolean isFirst = true;
 
-        for (Entry<String, String> entry : values.entrySet()) {
+        for (Entry<String, String> entry : lookup.entrySet()) {
             if (!isFirst) {
                 s.append(", ");
             } else {
@@ -158,37 +316,298 @@ public class DefaultTokenResolver implements TokenResolver {
         return s.toString();
     }
 
-    private void bindExtras(String tokenName, List<String> valueList) {
-        if (valueList.size() <= 1) {
-            this.multiValues.remove(tokenName);
-        } else {
-            Set<String> extras = this.multiValues.get(tokenName);
+    /**
+     * Returns the scope that lookups fall through to, or null for a root. Subclasses may override this to fall
+     * through to a parent that changes over time; such a parent's binders are not inherited.
+     */
+    protected DefaultTokenResolver parent() {
+        return parent;
+    }
+
+    private DefaultTokenResolver scopeFor(Object object) {
+        return (object == null ? this : forObject(object));
+    }
 
-            if (extras == null) {
-                extras = new LinkedHashSet<String>(valueList.size() - 1);
-                this.multiValues.put(tokenName, extras);
+    private DefaultTokenResolver ownerOf(String tokenName) {
+        for (DefaultTokenResolver scope = this; scope != null; scope = scope.parent()) {
+            if (scope.values != null && scope.values.containsKey(tokenName)) {
+                return scope;
             }
+        }
+
+        return null;
+    }
+
+    private Object getVariable(String tokenName) {
+        DefaultTokenResolver owner = ownerOf(tokenName);
 
-            for (int i = 1; i < valueList.size(); ++i) {
-                extras.add(valueList.get(i));
+        if (owner == null) {
+            return null;
+        }
+
+        String value = owner.values.get(tokenName);
+        Set<String> extras = owner.localExtras(tokenName);
+
+        if (value == null || extras == null) {
+            return value;
+        }
+
+        List<String> all = new ArrayList<String>(extras.size() + 1);
+        all.add(value);
+        all.addAll(extras);
+
+        return all;
+    }
+
+    private Map<String, Set<String>> collectExtras() {
+        Map<String, Set<String>> extras = null;
+
+        for (DefaultTokenResolver scope = this; scope != null; scope = scope.parent()) {
+            if (scope.multiValues == null) {
+                continue;
             }
+
+            for (Entry<String, Set<String>> entry : scope.multiValues.entrySet()) {
+                if (ownerOf(entry.getKey()) == scope) {
+                    if (extras == null) {
+                        extras = new LinkedHashMap<String, Set<String>>();
+                    }
+
+                    extras.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        return (extras == null ? Collections.<String, Set<String>>emptyMap() : extras);
+    }
+
+    private Map<String, String> localValues() {
+        if (values == null) {
+            values = new HashMap<String, String>();
+        }
+
+        return values;
+    }
+
+    private Set<String> localExtras(String tokenName) {
+        return (multiValues == null ? null : multiValues.get(tokenName));
+    }
+
+    private void bindExtras(String tokenName, List<String> valueList) {
+        if (valueList.size() <= 1) {
+            if (multiValues != null) {
+                multiValues.remove(tokenName);
+            }
+
+            return;
+        }
+
+        if (multiValues == null) {
+            multiValues = new HashMap<String, Set<String>>();
+        }
+
+        Set<String> extras = multiValues.get(tokenName);
+
+        if (extras == null) {
+            extras = new LinkedHashSet<String>(valueList.size() - 1);
+            multiValues.put(tokenName, extras);
+        }
+
+        for (int i = 1; i < valueList.size(); ++i) {
+            extras.add(valueList.get(i));
         }
     }
 
+    private DefaultTokenResolver addBinder(Class<?> type, TokenBinder<?> callback) {
+        binders = binders.with(type, callback);
+
+        return this;
+    }
+
     @SuppressWarnings({ "rawtypes", "unchecked" })
     private void callTokenBinders(Object object) {
         if (object == null) {
             return;
         }
 
-        for (TokenBinder tokenBinder : binders) {
-            Class<?> binderClass =
-                (Class<?>)
-                ((ParameterizedType) tokenBinder.getClass().getGenericInterfaces()[0]).getActualTypeArguments()[0];
+        for (TokenBinder tokenBinder : binders.forType(object.getClass())) {
+            tokenBinder.bind(object, this);
+        }
+    }
+
+    private static Class<?> findBoundType(Class<?> binderClass) {
+        return findBoundType(binderClass, Collections.<TypeVariable<?>, Type>emptyMap());
+    }
+
+    private static Class<?> findBoundType(Type type, Map<TypeVariable<?>, Type> typeArguments) {
+        Class<?> raw;
+        Map<TypeVariable<?>, Type> arguments = typeArguments;
+
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            raw = (Class<?>) parameterized.getRawType();
+            Type[] actuals = parameterized.getActualTypeArguments();
+
+            if (raw == TokenBinder.class) {
+                return toClass(actuals[0], typeArguments);
+            }
+
+            TypeVariable<?>[] variables = raw.getTypeParameters();
+            arguments = new HashMap<TypeVariable<?>, Type>(variables.length);
+
+            for (int i = 0; i < variables.length; ++i) {
+                Type actual = actuals[i];
+                arguments.put(variables[i], (actual instanceof TypeVariable ? typeArguments.get(actual) : actual));
+            }
+        } else if (type instanceof Class) {
+            raw = (Class<?>) type;
+        } else {
+            return null;
+        }
+
+        if (!TokenBinder.class.isAssignableFrom(raw)) {
+            return null;
+        }
+
+        for (Type superInterface : raw.getGenericInterfaces()) {
+            Class<?> bound = findBoundType(superInterface, arguments);
+
+            if (bound != null) {
+                return bound;
+            }
+        }
+
+        return (raw.getGenericSuperclass() == null ? null : findBoundType(raw.getGenericSuperclass(), arguments));
+    }
+
+    private static Class<?> toClass(Type type, Map<TypeVariable<?>, Type> typeArguments) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+
+        if (type instanceof TypeVariable) {
+            Type actual = typeArguments.get(type);
+
+            return (actual == null ? null : toClass(actual, typeArguments));
+        }
+
+        return null;
+    }
+
+    /**
+     * An immutable list of binders and the types they apply to. Adding a binder creates a new instance, so scopes
+     * share it until one of them adds its own. The binders applicable to each object class are resolved once per
+     * instance in a ClassValue, which does not keep the classes (or their class loaders) reachable.
+     */
+    private static class Binders {
+        static final Binders NONE = new Binders(new Class<?>[0], NO_BINDERS);
+
+        private final Class<?>[] types;
+        private final TokenBinder<?>[] callbacks;
+        private final ClassValue<TokenBinder<?>[]> byType = new ClassValue<TokenBinder<?>[]>() {
+            protected TokenBinder<?>[] computeValue(Class<?> objectType) {
+                return applicableTo(objectType);
+            }
+        };
 
-            if (binderClass.isAssignableFrom(object.getClass())) {
-                tokenBinder.bind(object, this);
+        Binders(Class<?>[] types, TokenBinder<?>[] callbacks) {
+            super();
+            this.types = types;
+            this.callbacks = callbacks;
+        }
+
+        Binders with(Class<?> type, TokenBinder<?> callback) {
+            Class<?>[] moreTypes = Arrays.copyOf(types, types.length + 1);
+            moreTypes[types.length] = type;
+            TokenBinder<?>[] moreCallbacks = Arrays.copyOf(callbacks, callbacks.length + 1);
+            moreCallbacks[callbacks.length] = callback;
+
+            return new Binders(moreTypes, moreCallbacks);
+        }
+
+        TokenBinder<?>[] forType(Class<?> objectType) {
+            return (callbacks.length == 0 ? NO_BINDERS : byType.get(objectType));
+        }
+
+        private TokenBinder<?>[] applicableTo(Class<?> objectType) {
+            List<TokenBinder<?>> matches = new ArrayList<TokenBinder<?>>(callbacks.length);
+
+            for (int i = 0; i < callbacks.length; ++i) {
+                if (types[i].isAssignableFrom(objectType)) {
+                    matches.add(callbacks[i]);
+                }
             }
+
+            return (matches.isEmpty() ? NO_BINDERS : matches.toArray(new TokenBinder<?>[matches.size()]));
+        }
+    }
+
+    /**
+     * A read-only view of the bindings visible from this scope, falling through to each parent in turn.
+     */
+    private class ScopeValues extends AbstractMap<String, String> {
+        public String get(Object tokenName) {
+            for (DefaultTokenResolver scope = DefaultTokenResolver.this; scope != null; scope = scope.parent()) {
+                if (scope.values != null && scope.values.containsKey(tokenName)) {
+                    return scope.values.get(tokenName);
+                }
+            }
+
+            return null;
+        }
+
+        public boolean containsKey(Object tokenName) {
+            return (get(tokenName) != null);
+        }
+
+        public Set<Entry<String, String>> entrySet() {
+            Map<String, String> flattened = new LinkedHashMap<String, String>();
+
+            for (DefaultTokenResolver scope = DefaultTokenResolver.this; scope != null; scope = scope.parent()) {
+                if (scope.values == null) {
+                    continue;
+                }
+
+                for (Entry<String, String> entry : scope.values.entrySet()) {
+                    if (!flattened.containsKey(entry.getKey())) {
+                        flattened.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+
+            flattened.values().removeAll(Collections.singleton(null));
+
+            return flattened.entrySet();
+        }
+    }
+
+    /**
+     * Substitutes one value for one token over a scope view, so alternate values can be resolved without
+     * mutating the scope.
+     */
+    private static class OverrideValues extends AbstractMap<String, String> {
+        private final Map<String, String> values;
+        private String tokenName;
+        private String value;
+
+        OverrideValues(Map<String, String> values) {
+            super();
+            this.values = values;
+        }
+
+        public String get(Object key) {
+            return (tokenName.equals(key) ? value : values.get(key));
+        }
+
+        public Set<Entry<String, String>> entrySet() {
+            Map<String, String> copy = new LinkedHashMap<String, String>(values);
+            copy.put(tokenName, value);
+
+            return copy.entrySet();
         }
     }
 }
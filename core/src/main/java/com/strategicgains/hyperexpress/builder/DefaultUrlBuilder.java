@@ -1,14 +1,27 @@
 package com.strategicgains.hyperexpress.builder;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-import com.strategicgains.hyperexpress.util.Strings;
+import com.strategicgains.hyperexpress.domain.Link;
+import com.strategicgains.hyperexpress.domain.LinkAttributes;
+import com.strategicgains.hyperexpress.domain.LinkDefinition;
+import com.strategicgains.hyperexpress.util.CompiledTemplate;
+import com.strategicgains.hyperexpress.util.UriTemplate;
 
 public class DefaultUrlBuilder implements UrlBuilder {
+    private static final int MAX_BUFFER_CAPACITY = 2048;
+    private static final ThreadLocal<StringBuilder> BUFFERS = new ThreadLocal<StringBuilder>();
+
     private String baseUrl;
     private String urlPattern;
     private List<String> queries;
+    private CompiledTemplate fullUrlTemplate;
+    private UriTemplate fullUriTemplate;
+    private List<CompiledTemplate> queryTemplates;
+    private List<UriTemplate> queryUriTemplates;
 
     public DefaultUrlBuilder() {
         super();
@@ -23,10 +36,12 @@ public class DefaultUrlBuilder implements UrlBuilder {
         }
 
         this.urlPattern = urlPattern;
+        compileUrl();
     }
 
     public DefaultUrlBuilder urlPattern(String urlPattern) {
         this.urlPattern = urlPattern;
+        compileUrl();
 
         return this;
     }
@@ -37,6 +52,7 @@ public class DefaultUrlBuilder implements UrlBuilder {
 
     public DefaultUrlBuilder baseUrl(String baseUrl) {
         this.baseUrl = baseUrl;
+        compileUrl();
 
         return this;
     }
@@ -47,6 +63,8 @@ public class DefaultUrlBuilder implements UrlBuilder {
 
     public DefaultUrlBuilder withQuery(String query) {
         queries().add(query);
+        queryTemplates().add(compileOwn(query));
+        queryUriTemplates.add(UriTemplate.compileExtended(query));
 
         return this;
     }
@@ -54,13 +72,43 @@ public class DefaultUrlBuilder implements UrlBuilder {
     public void clearQueries() {
         if (queries != null) {
             queries.clear();
+            queryTemplates.clear();
+            queryUriTemplates.clear();
+        }
+    }
+
+    /**
+     * Returns true if the URL pattern, base URL or any query segment contains a token, i.e. if the built URL can
+     * vary from one call to the next.
+     */
+    public boolean hasTokens() {
+        if (fullUrlTemplate().hasTokens()) {
+            return true;
+        }
+
+        if (queryTemplates != null) {
+            for (CompiledTemplate query : queryTemplates) {
+                if (query.hasTokens()) {
+                    return true;
+                }
+            }
         }
+
+        return false;
     }
 
     public DefaultUrlBuilder clone() {
-        DefaultUrlBuilder b = new DefaultUrlBuilder(this.urlPattern);
+        DefaultUrlBuilder b = new DefaultUrlBuilder();
+        b.urlPattern = this.urlPattern;
         b.baseUrl = this.baseUrl;
-        b.queries = (this.queries == null ? null : new ArrayList<String>(this.queries));
+        b.fullUrlTemplate = this.fullUrlTemplate;
+        b.fullUriTemplate = this.fullUriTemplate;
+
+        if (this.queries != null) {
+            b.queries = new ArrayList<String>(this.queries);
+            b.queryTemplates = new ArrayList<CompiledTemplate>(this.queryTemplates);
+            b.queryUriTemplates = new ArrayList<UriTemplate>(this.queryUriTemplates);
+        }
 
         return b;
     }
@@ -81,11 +129,11 @@ public class DefaultUrlBuilder implements UrlBuilder {
     }
 
     public String build(TokenResolver tokenResolver) {
-        return build(buildFullUrlPattern(), null, tokenResolver);
+        return build(fullUrlTemplate(), fullUriTemplate, null, tokenResolver);
     }
 
     public String build(Object object, TokenResolver tokenResolver) {
-        return build(buildFullUrlPattern(), object, tokenResolver);
+        return build(fullUrlTemplate(), fullUriTemplate, object, tokenResolver);
     }
 
     public String build(String urlPattern, TokenResolver tokenResolver) {
@@ -93,24 +141,80 @@ public class DefaultUrlBuilder implements UrlBuilder {
     }
 
     public String build(String urlPattern, Object object, TokenResolver tokenResolver) {
-        if (tokenResolver == null) {
-            return appendQueryString(urlPattern, null);
+        if (fullUrlTemplate != null && fullUrlTemplate.pattern().equals(urlPattern)) {
+            return build(fullUrlTemplate, fullUriTemplate, object, tokenResolver);
         }
 
-        String url = tokenResolver.resolve(urlPattern, object);
+        return build(CompiledTemplate.compile(urlPattern), UriTemplate.compileExtended(urlPattern), object,
+            tokenResolver);
+    }
+
+    private String build(CompiledTemplate urlTemplate, UriTemplate uriTemplate, Object object,
+        TokenResolver tokenResolver) {
+        TokenResolver scope = AbstractTokenResolver.scopeFor(tokenResolver, object);
+        StringBuilder sb = acquireBuffer();
+
+        try {
+            render(sb, urlTemplate, uriTemplate, scope);
 
-        return appendQueryString(url, tokenResolver);
+            return sb.toString();
+        } finally {
+            releaseBuffer(sb);
+        }
     }
 
-    private String buildFullUrlPattern() {
-        if (urlPattern == null) {
-            throw new IllegalStateException("Null URL pattern");
+    /**
+     * Builds a link to the URL. When every token was bound the link records that it has none, so that
+     * {@link Link#hasToken()} need not scan the href; links left with unbound tokens scan it as before.
+     */
+    LinkDefinition buildLink(String rel, LinkAttributes attributes, Object object, TokenResolver tokenResolver) {
+        TokenResolver scope = AbstractTokenResolver.scopeFor(tokenResolver, object);
+        StringBuilder sb = acquireBuffer();
+
+        try {
+            if (render(sb, fullUrlTemplate(), fullUriTemplate, scope)) {
+                return new LinkDefinition(rel, sb.toString(), attributes, false);
+            }
+
+            return new LinkDefinition(rel, sb.toString(), attributes);
+        } finally {
+            releaseBuffer(sb);
+        }
+    }
+
+    /**
+     * Renders the URL directly into the given buffer, without intermediate strings.
+     */
+    public void buildInto(StringBuilder sb, Object object, TokenResolver tokenResolver) {
+        render(sb, fullUrlTemplate(), fullUriTemplate, AbstractTokenResolver.scopeFor(tokenResolver, object));
+    }
+
+    public void buildInto(Appendable out, Object object, TokenResolver tokenResolver)
+    throws IOException {
+        if (out instanceof StringBuilder) {
+            buildInto((StringBuilder) out, object, tokenResolver);
+            return;
         }
 
-        return (baseUrl == null ? urlPattern : baseUrl + urlPattern);
+        TokenResolver scope = AbstractTokenResolver.scopeFor(tokenResolver, object);
+        StringBuilder sb = acquireBuffer();
+
+        try {
+            render(sb, fullUrlTemplate(), fullUriTemplate, scope);
+            out.append(sb);
+        } finally {
+            releaseBuffer(sb);
+        }
+    }
+
+    public String expand(TokenResolver tokenResolver) {
+        return expand(null, tokenResolver);
     }
 
-    private String appendQueryString(String url, TokenResolver tokenResolver) {
+    public String expand(Object object, TokenResolver tokenResolver) {
+        TokenResolver scope = AbstractTokenResolver.scopeFor(tokenResolver, object);
+        String url = expandTemplate(fullUrlTemplate().pattern(), scope);
+
         if (queries == null || queries.isEmpty()) {
             return url;
         }
@@ -119,33 +223,160 @@ public class DefaultUrlBuilder implements UrlBuilder {
         boolean hasQuery = url.contains("?");
 
         for (String query : queries) {
-            String boundQuery = null;
+            String expanded = expandTemplate(query, scope);
+
+            if (expanded.isEmpty()) {
+                continue;
+            }
 
-            if (Strings.hasToken(query)) {
-                boundQuery = resolveQueryString(query, tokenResolver);
+            sb.append(queryDelimiter(hasQuery));
+            hasQuery = true;
+            char first = expanded.charAt(0);
+
+            if (first == '?' || first == '&') {
+                sb.append(expanded, 1, expanded.length());
             } else {
-                boundQuery = query;
+                sb.append(expanded);
             }
+        }
 
-            if (boundQuery != null) {
-                sb.append(queryDelimiter(hasQuery));
-                sb.append(boundQuery);
-                hasQuery = true;
+        return sb.toString();
+    }
+
+    private String expandTemplate(String uriTemplate, TokenResolver tokenResolver) {
+        if (tokenResolver == null) {
+            return UriTemplate.compile(uriTemplate).expand(Collections.<String, Object>emptyMap());
+        }
+
+        return AbstractTokenResolver.adapt(tokenResolver).expand(uriTemplate);
+    }
+
+    private CompiledTemplate fullUrlTemplate() {
+        if (fullUrlTemplate == null) {
+            throw new IllegalStateException("Null URL pattern");
+        }
+
+        return fullUrlTemplate;
+    }
+
+    /**
+     * Compiles the full URL pattern when the URL pattern or base URL is set, so rendering never looks it up. A
+     * pattern that uses RFC 6570 operators, variable lists or modifiers is also compiled as a URI Template.
+     */
+    private void compileUrl() {
+        if (urlPattern == null) {
+            fullUrlTemplate = null;
+            fullUriTemplate = null;
+        } else {
+            String fullUrl = (baseUrl == null ? urlPattern : baseUrl + urlPattern);
+            fullUrlTemplate = compileOwn(fullUrl);
+            fullUriTemplate = UriTemplate.compileExtended(fullUrl);
+        }
+    }
+
+    /**
+     * Compiles a pattern this builder keeps, bypassing the shared template cache.
+     */
+    private static CompiledTemplate compileOwn(String pattern) {
+        return CompiledTemplate.compile(pattern, CompiledTemplate.DEFAULT_START_DELIMITER,
+            CompiledTemplate.DEFAULT_END_DELIMITER);
+    }
+
+    /**
+     * Renders the URL and query segments. Segments compiled as URI Templates are expanded by RFC 6570, omitting
+     * undefined variables; the others substitute tokens, keeping unbound ones in the URL and dropping query segments
+     * with unbound tokens. Without a resolver the URL pattern is written as is.
+     *
+     * @return false if the rendered URL was left with unbound tokens.
+     */
+    private boolean render(StringBuilder sb, CompiledTemplate urlTemplate, UriTemplate uriTemplate,
+        TokenResolver tokenResolver) {
+        int start = sb.length();
+        AbstractTokenResolver resolver = AbstractTokenResolver.adapt(tokenResolver);
+        boolean isBound = true;
+
+        if (resolver == null) {
+            sb.append(urlTemplate.pattern());
+            isBound = !urlTemplate.hasTokens();
+        } else if (uriTemplate != null) {
+            uriTemplate.expandTo(sb, resolver.variables());
+        } else if (!resolver.resolveTo(sb, urlTemplate)) {
+            // Keep the unbound tokens, so callers can tell the URL is incomplete.
+            sb.append(resolver.resolve(urlTemplate));
+            isBound = false;
+        }
+
+        if (queries == null || queries.isEmpty()) {
+            return isBound;
+        }
+
+        boolean hasQuery = (sb.indexOf("?", start) >= 0);
+
+        for (int i = 0; i < queryTemplates.size(); ++i) {
+            CompiledTemplate query = queryTemplates.get(i);
+            UriTemplate uriQuery = queryUriTemplates.get(i);
+            int mark = sb.length();
+            sb.append(queryDelimiter(hasQuery));
+
+            if (!query.hasTokens()) {
+                sb.append(query.pattern());
+            } else if (resolver == null) {
+                sb.setLength(mark);
+                continue;
+            } else if (uriQuery != null) {
+                if (!expandQueryTo(sb, uriQuery, resolver)) {
+                    sb.setLength(mark);
+                    continue;
+                }
+            } else if (!resolver.resolveMultiTo(sb, query, "&")) {
+                sb.setLength(mark);
+                continue;
             }
+
+            hasQuery = true;
+        }
+
+        return isBound;
+    }
+
+    /**
+     * Expands a URI Template query segment after the delimiter already written, dropping the segment's own leading
+     * '?' or '&'. Returns false if it expanded to nothing.
+     */
+    private static boolean expandQueryTo(StringBuilder sb, UriTemplate query, AbstractTokenResolver resolver) {
+        int from = sb.length();
+        query.expandTo(sb, resolver.variables());
+
+        if (sb.length() == from) {
+            return false;
+        }
+
+        char first = sb.charAt(from);
+
+        if (first == '?' || first == '&') {
+            sb.deleteCharAt(from);
         }
 
-        return (hasQuery ? sb.toString() : url);
+        return true;
     }
 
-    private String resolveQueryString(String query, TokenResolver tokenResolver) {
-        if (tokenResolver != null) {
-            String[] resolved = tokenResolver.resolveMulti(query);
-            String all = String.join(queryDelimiter(true), resolved);
+    private static StringBuilder acquireBuffer() {
+        StringBuilder sb = BUFFERS.get();
 
-            return (Strings.hasToken(all) ? null : all);
+        if (sb == null) {
+            return new StringBuilder(128);
         }
 
-        return null;
+        BUFFERS.set(null);
+        sb.setLength(0);
+
+        return sb;
+    }
+
+    private static void releaseBuffer(StringBuilder sb) {
+        if (sb.capacity() <= MAX_BUFFER_CAPACITY) {
+            BUFFERS.set(sb);
+        }
     }
 
     private String queryDelimiter(boolean hasQuery) {
@@ -171,6 +402,15 @@ public class DefaultUrlBuilder implements UrlBuilder {
         s.append("}");
     }
 
+    private List<CompiledTemplate> queryTemplates() {
+        if (queryTemplates == null) {
+            queryTemplates = new ArrayList<CompiledTemplate>();
+            queryUriTemplates = new ArrayList<UriTemplate>();
+        }
+
+        return queryTemplates;
+    }
+
     private List<String> queries() {
         if (queries == null) {
             queries = new ArrayList<String>();
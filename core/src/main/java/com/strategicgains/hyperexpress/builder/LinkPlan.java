@@ -0,0 +1,118 @@
+package com.strategicgains.hyperexpress.builder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.strategicgains.hyperexpress.Projection;
+import com.strategicgains.hyperexpress.domain.Link;
+import com.strategicgains.hyperexpress.domain.Namespace;
+import com.strategicgains.hyperexpress.domain.Resource;
+
+/**
+ * The precomputed linking work for one type (or one collection of a type): its link builders in definition
+ * order, whether each builder's rel renders as an array, and the shared namespace list. Per-object work is
+ * reduced to building each link and adding it to the resource.
+ */
+public final class LinkPlan {
+    private final LinkBuilder[] builders;
+    private final boolean[] arrayRels;
+    private final Set<String> arrayRelNames;
+    private final List<Namespace> namespaces;
+
+    LinkPlan(List<? extends LinkBuilder> builders, Set<String> arrayRelNames, List<Namespace> namespaces) {
+        super();
+        this.builders = builders.toArray(new LinkBuilder[builders.size()]);
+        this.arrayRels = new boolean[this.builders.length];
+
+        if (arrayRelNames == null || arrayRelNames.isEmpty()) {
+            this.arrayRelNames = Collections.emptySet();
+        } else {
+            this.arrayRelNames = Collections.unmodifiableSet(new HashSet<String>(arrayRelNames));
+        }
+
+        this.namespaces = namespaces;
+
+        for (int i = 0; i < this.builders.length; ++i) {
+            arrayRels[i] = this.arrayRelNames.contains(this.builders[i].rel());
+        }
+    }
+
+    public int size() {
+        return builders.length;
+    }
+
+    public boolean isEmpty() {
+        return (builders.length == 0);
+    }
+
+    public LinkBuilder getBuilder(int index) {
+        return builders[index];
+    }
+
+    public boolean isArrayRel(int index) {
+        return arrayRels[index];
+    }
+
+    public boolean isArrayRel(String rel) {
+        return arrayRelNames.contains(rel);
+    }
+
+    public List<LinkBuilder> getBuilders() {
+        return Collections.unmodifiableList(Arrays.asList(builders));
+    }
+
+    public List<Namespace> getNamespaces() {
+        return namespaces;
+    }
+
+    /**
+     * Builds the link for one builder, for serializers that write it out and then drop it. A token-free link may be
+     * a shared, immutable instance, so it must not be modified or added to a resource.
+     */
+    public Link buildLink(int index, Object object, TokenResolver tokenResolver) {
+        LinkBuilder builder = builders[index];
+        Class<?> type = builder.getClass();
+
+        if (type == DefaultLinkBuilder.class || type == DefaultConditionalLinkBuilder.class) {
+            return ((DefaultLinkBuilder) builder).build(object, tokenResolver, true);
+        }
+
+        return builder.build(object, tokenResolver);
+    }
+
+    public Resource addLinks(Resource resource, Object object, TokenResolver tokenResolver) {
+        return addLinks(resource, object, tokenResolver, Projection.ALL);
+    }
+
+    /**
+     * Builds and adds the links for the object, skipping builders whose rel is not in the projection.
+     */
+    public Resource addLinks(Resource resource, Object object, TokenResolver tokenResolver, Projection projection) {
+        if (builders.length == 0) {
+            return resource;
+        }
+
+        TokenResolver scope = null;
+
+        for (int i = 0; i < builders.length; ++i) {
+            if (projection != null && !projection.includesRel(builders[i].rel())) {
+                continue;
+            }
+
+            if (scope == null) {
+                scope = AbstractTokenResolver.scopeFor(tokenResolver, object);
+            }
+
+            Link link = builders[i].build(object, scope);
+
+            if (link != null) {
+                resource.addLink(link, arrayRels[i]);
+            }
+        }
+
+        return resource;
+    }
+}
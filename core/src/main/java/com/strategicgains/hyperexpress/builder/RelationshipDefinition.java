@@ -34,6 +34,7 @@ public class RelationshipDefinition {
     private Set<String> arrayRels;
     private String lastClassName;
     private Map<String, String> relNamesByClass = new HashMap<String, String>();
+    private volatile CompiledRelationships compiled;
 
     public RelationshipDefinition builderFactory(BuilderFactory factory) {
         this.factory = factory;
@@ -63,6 +64,7 @@ public class RelationshipDefinition {
         }
 
         namespaces.put(namespace.name(), namespace.clone());
+        modified();
 
         return this;
     }
@@ -81,6 +83,7 @@ public class RelationshipDefinition {
         }
 
         relNamesByClass.put(lastClassName, name);
+        modified();
 
         return this;
     }
@@ -116,6 +119,7 @@ public class RelationshipDefinition {
         }
 
         linkBuildersForClass.add(builder);
+        modified();
 
         return this;
     }
@@ -172,6 +176,7 @@ public class RelationshipDefinition {
         }
 
         linkBuilder.optional();
+        modified();
 
         return this;
     }
@@ -183,6 +188,7 @@ public class RelationshipDefinition {
         }
 
         linkBuilder.ifBound(token);
+        modified();
 
         return this;
     }
@@ -194,6 +200,7 @@ public class RelationshipDefinition {
         }
 
         linkBuilder.ifNotBound(token);
+        modified();
 
         return this;
     }
@@ -204,6 +211,7 @@ public class RelationshipDefinition {
         }
 
         linkBuilder.set(name, value);
+        modified();
 
         return this;
     }
@@ -215,10 +223,23 @@ public class RelationshipDefinition {
         }
 
         linkBuilder.withQuery(querySegment);
+        modified();
 
         return this;
     }
 
+    /**
+     * Returns an immutable snapshot of these relationships. The snapshot is cached until the next change to this
+     * definition, so repeated calls are cheap, and it holds copies of the link builders, so changing the definition
+     * afterwards does not affect snapshots already handed out. The definition itself is not thread-safe: changes
+     * must not run concurrently with each other or with compile(). Reading a cached snapshot takes no lock.
+     */
+    public CompiledRelationships compile() {
+        CompiledRelationships snapshot = compiled;
+
+        return (snapshot == null ? compileLocked() : snapshot);
+    }
+
     public List<LinkBuilder> getLinkBuilders(Class<?> forClass) {
         if (forClass == null) {
             return Collections.emptyList();
@@ -251,6 +272,21 @@ public class RelationshipDefinition {
         return isArrayRel(objectType.getName() + COLLECTION_SUFFIX, rel);
     }
 
+    private void modified() {
+        compiled = null;
+    }
+
+    private synchronized CompiledRelationships compileLocked() {
+        CompiledRelationships snapshot = compiled;
+
+        if (snapshot == null) {
+            snapshot = new CompiledRelationships(namespaces, linkBuildersByClass, arrayRelsByClass, relNamesByClass);
+            compiled = snapshot;
+        }
+
+        return snapshot;
+    }
+
     private RelationshipDefinition forClassName(String name) {
         if (name == null) {
             return this;
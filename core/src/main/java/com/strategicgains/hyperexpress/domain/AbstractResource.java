@@ -12,14 +12,18 @@ import java.util.Set;
 
 import com.strategicgains.hyperexpress.exception.ResourceException;
 
+/**
+ * Every container is allocated on first use, so a resource without links, properties or embedded resources (a
+ * typical embedded collection item) carries no empty maps, lists or sets.
+ */
 public abstract class AbstractResource implements Resource {
     private List<Namespace> namespaces;
-    private Map<String, List<Link>> linksByRel = new LinkedHashMap<String, List<Link>>();
-    private List<Link> allLinks = new ArrayList<Link>();
-    private Map<String, Object> properties = new LinkedHashMap<String, Object>();
+    private Map<String, List<Link>> linksByRel;
+    private List<Link> allLinks;
+    private Map<String, Object> properties;
     private Map<String, List<Resource>> resources;
-    private Set<String> arrayLinkRels = new HashSet<String>();
-    private Set<String> arrayResourceRels = new HashSet<String>();
+    private Set<String> arrayLinkRels;
+    private Set<String> arrayResourceRels;
 
     public Resource from(Resource that) {
         addNamespaces(that.getNamespaces());
@@ -37,23 +41,23 @@ public abstract class AbstractResource implements Resource {
     }
 
     public Resource addProperty(String name, Object value) {
-        if (properties.containsKey(name)) {
+        if (hasProperty(name)) {
             throw new ResourceException("Duplicate property: " + name);
         }
 
-        properties.put(name, value);
+        properties().put(name, value);
 
         return this;
     }
 
     public Object getProperty(String key) {
-        return properties.get(key);
+        return (properties == null ? null : properties.get(key));
     }
 
     public Resource setProperty(String key, Object value) {
         if (value != null) {
-            properties.put(key, value);
-        } else {
+            properties().put(key, value);
+        } else if (properties != null) {
             properties.remove(key);
         }
 
@@ -109,11 +113,11 @@ public abstract class AbstractResource implements Resource {
     }
 
     public Map<String, Object> getProperties() {
-        return Collections.unmodifiableMap(properties);
+        return (properties == null ? Collections.<String, Object>emptyMap() : Collections.unmodifiableMap(properties));
     }
 
     public boolean hasProperties() {
-        return (!properties.isEmpty());
+        return (properties != null && !properties.isEmpty());
     }
 
     public Resource addLink(Link link) {
@@ -130,10 +134,15 @@ public abstract class AbstractResource implements Resource {
         }
 
         acquireLinksForRel(link.getRel()).add(link);
+
+        if (allLinks == null) {
+            allLinks = new ArrayList<Link>();
+        }
+
         allLinks.add(link);
 
         if (isMultiple) {
-            arrayLinkRels.add(link.getRel());
+            arrayLinkRels = addRel(arrayLinkRels, link.getRel());
         }
 
         return this;
@@ -152,15 +161,16 @@ public abstract class AbstractResource implements Resource {
     }
 
     public List<Link> getLinks() {
-        return Collections.unmodifiableList(allLinks);
+        return (allLinks == null ? Collections.<Link>emptyList() : Collections.unmodifiableList(allLinks));
     }
 
     public Map<String, List<Link>> getLinksByRel() {
-        return Collections.unmodifiableMap(linksByRel);
+        return (linksByRel == null ? Collections.<String, List<Link>>emptyMap()
+                                   : Collections.unmodifiableMap(linksByRel));
     }
 
     public boolean hasLinks() {
-        return (!linksByRel.isEmpty());
+        return (linksByRel != null && !linksByRel.isEmpty());
     }
 
     public Resource addResource(String rel, Resource resource) {
@@ -180,7 +190,7 @@ public abstract class AbstractResource implements Resource {
         forRel.add(resource);
 
         if (isMultiple) {
-            arrayResourceRels.add(rel);
+            arrayResourceRels = addRel(arrayResourceRels, rel);
         }
 
         return this;
@@ -189,7 +199,7 @@ public abstract class AbstractResource implements Resource {
     public Resource addResources(String rel, Collection<Resource> collection) {
         List<Resource> forRel = acquireResourcesForRel(rel);
         forRel.addAll(collection);
-        arrayResourceRels.add(rel);
+        arrayResourceRels = addRel(arrayResourceRels, rel);
 
         return this;
     }
@@ -210,15 +220,15 @@ public abstract class AbstractResource implements Resource {
     }
 
     public boolean isMultipleLinks(String rel) {
-        return arrayLinkRels.contains(rel);
+        return (arrayLinkRels != null && arrayLinkRels.contains(rel));
     }
 
     public boolean isMultipleResources(String rel) {
-        return arrayResourceRels.contains(rel);
+        return (arrayResourceRels != null && arrayResourceRels.contains(rel));
     }
 
     public Object removeProperty(String name) {
-        return properties.remove(name);
+        return (properties == null ? null : properties.remove(name));
     }
 
     public boolean hasResources(String rel) {
@@ -226,7 +236,7 @@ public abstract class AbstractResource implements Resource {
     }
 
     public boolean hasProperty(String name) {
-        return properties.containsKey(name);
+        return (properties != null && properties.containsKey(name));
     }
 
     private Map<String, List<Resource>> _getResources() {
@@ -248,11 +258,30 @@ public abstract class AbstractResource implements Resource {
         return forRel;
     }
 
+    private Map<String, Object> properties() {
+        if (properties == null) {
+            properties = new LinkedHashMap<String, Object>();
+        }
+
+        return properties;
+    }
+
+    private Set<String> addRel(Set<String> rels, String rel) {
+        Set<String> result = (rels == null ? new HashSet<String>(4) : rels);
+        result.add(rel);
+
+        return result;
+    }
+
     private List<Link> acquireLinksForRel(String rel) {
+        if (linksByRel == null) {
+            linksByRel = new LinkedHashMap<String, List<Link>>();
+        }
+
         List<Link> forRel = linksByRel.get(rel);
 
         if (forRel == null) {
-            forRel = new ArrayList<Link>();
+            forRel = new ArrayList<Link>(2);
             linksByRel.put(rel, forRel);
         }
 
@@ -0,0 +1,86 @@
+package com.strategicgains.hyperexpress.domain;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * An immutable block of optional link attributes (everything but rel and href). One instance is created per link
+ * builder and shared by every {@link LinkDefinition} it builds.
+ */
+public final class LinkAttributes {
+    public static final String TITLE = "title";
+    public static final String TYPE = "type";
+    public static final String NAME = "name";
+    public static final LinkAttributes EMPTY = new LinkAttributes(Collections.<String, String>emptyMap());
+
+    private static final String REL_TYPE = "rel";
+    private static final String HREF = "href";
+
+    private final String title;
+    private final String type;
+    private final String name;
+    private final Map<String, String> attributes;
+
+    private LinkAttributes(Map<String, String> attributes) {
+        super();
+        this.attributes = attributes;
+        this.title = attributes.get(TITLE);
+        this.type = attributes.get(TYPE);
+        this.name = attributes.get(NAME);
+    }
+
+    public static LinkAttributes of(Map<String, String> attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return EMPTY;
+        }
+
+        Map<String, String> copy = new LinkedHashMap<String, String>(attributes.size());
+
+        for (Entry<String, String> entry : attributes.entrySet()) {
+            if (entry.getValue() != null && !REL_TYPE.equalsIgnoreCase(entry.getKey()) &&
+                    !HREF.equals(entry.getKey())) {
+                copy.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return (copy.isEmpty() ? EMPTY : new LinkAttributes(Collections.unmodifiableMap(copy)));
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String get(String name) {
+        if (TITLE.equals(name)) {
+            return title;
+        }
+
+        if (TYPE.equals(name)) {
+            return type;
+        }
+
+        if (NAME.equals(name)) {
+            return this.name;
+        }
+
+        return attributes.get(name);
+    }
+
+    public boolean isEmpty() {
+        return attributes.isEmpty();
+    }
+
+    public Map<String, String> asMap() {
+        return attributes;
+    }
+}
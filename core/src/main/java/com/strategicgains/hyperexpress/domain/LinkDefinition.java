@@ -1,28 +1,57 @@
 package com.strategicgains.hyperexpress.domain;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import com.strategicgains.hyperexpress.util.Strings;
 
+/**
+ * A link with dedicated rel and href fields, plus a shared, immutable {@link LinkAttributes} block for the
+ * remaining attributes. Per-link attribute changes are kept in an overrides map that is only allocated on the first
+ * set() of an attribute other than rel or href.
+ */
 public class LinkDefinition implements Link {
     private static final String REL_TYPE = "rel";
     private static final String HREF = "href";
 
-    private Map<String, String> attributes = new HashMap<String, String>();
+    private String rel;
+    private String href;
+    private LinkAttributes shared = LinkAttributes.EMPTY;
+    private Map<String, String> overrides;
+    private boolean isImmutable = false;
+    private Boolean hasToken;
 
     public LinkDefinition(String rel, String href) {
         super();
-        setRel(rel);
-        setHref(href);
+        this.rel = rel;
+        this.href = href;
+    }
+
+    public LinkDefinition(String rel, String href, LinkAttributes attributes) {
+        this(rel, href);
+        this.shared = (attributes == null ? LinkAttributes.EMPTY : attributes);
+    }
+
+    /**
+     * Creates a link whose builder already knows whether the href was left with unbound tokens, so
+     * {@link #hasToken()} does not scan it. Changing the href afterwards clears this.
+     */
+    public LinkDefinition(String rel, String href, LinkAttributes attributes, boolean hasToken) {
+        this(rel, href, attributes);
+        this.hasToken = hasToken;
     }
 
     public LinkDefinition(LinkDefinition that) {
         super();
 
         if (that != null) {
-            this.attributes.putAll(that.attributes);
+            this.rel = that.rel;
+            this.href = that.href;
+            this.shared = that.shared;
+            this.overrides = (that.overrides == null ? null : new HashMap<String, String>(that.overrides));
+            this.hasToken = that.hasToken;
         }
     }
 
@@ -30,8 +59,28 @@ public class LinkDefinition implements Link {
         return new LinkDefinition(this);
     }
 
+    /**
+     * Returns an immutable copy of this link that may be shared between resources and threads. Its setters throw
+     * UnsupportedOperationException; clone() returns a mutable copy.
+     */
+    public LinkDefinition asImmutable() {
+        if (isImmutable) {
+            return this;
+        }
+
+        LinkDefinition link = new LinkDefinition(this);
+        link.hasToken();
+        link.isImmutable = true;
+
+        return link;
+    }
+
+    public boolean isImmutable() {
+        return isImmutable;
+    }
+
     public String getHref() {
-        return get(HREF);
+        return href;
     }
 
     public LinkDefinition setHref(String href) {
@@ -41,7 +90,7 @@ public class LinkDefinition implements Link {
     }
 
     public String getRel() {
-        return get(REL_TYPE);
+        return rel;
     }
 
     public LinkDefinition setRel(String rel) {
@@ -51,25 +100,61 @@ public class LinkDefinition implements Link {
     }
 
     public LinkDefinition set(String name, String value) {
-        if (value == null) {
-            attributes.remove(name);
-        } else {
-            attributes.put(name, value);
+        if (isImmutable) {
+            throw new UnsupportedOperationException("Link is immutable: " + this);
+        }
+
+        if (REL_TYPE.equals(name)) {
+            rel = value;
+        } else if (HREF.equals(name)) {
+            href = value;
+            hasToken = null;
+        } else if (value != null || shared.get(name) != null) {
+            if (overrides == null) {
+                overrides = new HashMap<String, String>(4);
+            }
+
+            overrides.put(name, value);
+        } else if (overrides != null) {
+            overrides.remove(name);
         }
 
         return this;
     }
 
     public String get(String name) {
-        return attributes.get(name);
+        if (REL_TYPE.equals(name)) {
+            return rel;
+        }
+
+        if (HREF.equals(name)) {
+            return href;
+        }
+
+        if (overrides != null && overrides.containsKey(name)) {
+            return overrides.get(name);
+        }
+
+        return shared.get(name);
     }
 
     public boolean has(String name) {
         return (get(name) != null);
     }
 
+    /**
+     * Whether the href still contains a {token}. Set by the builder that rendered the href, otherwise computed once
+     * per href; immutable links compute it up front.
+     */
     public boolean hasToken() {
-        return Strings.hasToken(getHref());
+        Boolean result = hasToken;
+
+        if (result == null) {
+            result = (href != null && Strings.hasToken(href));
+            hasToken = result;
+        }
+
+        return result;
     }
 
     public String toString() {
@@ -79,7 +164,7 @@ public class LinkDefinition implements Link {
 
         boolean isFirst = true;
 
-        for (Entry<String, String> entry : attributes.entrySet()) {
+        for (Entry<String, String> entry : attributes().entrySet()) {
             if (!isFirst) {
                 s.append(", ");
             } else {
@@ -97,7 +182,7 @@ public class LinkDefinition implements Link {
     }
 
     public int hashCode() {
-        return 31 + ((attributes == null) ? 0 : attributes.hashCode());
+        return 31 + attributes().hashCode();
     }
 
     public boolean equals(Object that) {
@@ -117,14 +202,47 @@ public class LinkDefinition implements Link {
     }
 
     public boolean equals(LinkDefinition that) {
-        if (attributes == null) {
-            if (that.attributes != null) {
-                return false;
-            }
-        } else if (!attributes.equals(that.attributes)) {
+        if (rel == null ? that.rel != null : !rel.equals(that.rel)) {
             return false;
         }
 
-        return true;
+        if (href == null ? that.href != null : !href.equals(that.href)) {
+            return false;
+        }
+
+        if (shared == that.shared && overrides == null && that.overrides == null) {
+            return true;
+        }
+
+        return attributes().equals(that.attributes());
+    }
+
+    /**
+     * Flattens rel, href, the shared attributes and any overrides into one map.
+     */
+    private Map<String, String> attributes() {
+        Map<String, String> all = new LinkedHashMap<String, String>();
+
+        if (rel != null) {
+            all.put(REL_TYPE, rel);
+        }
+
+        if (href != null) {
+            all.put(HREF, href);
+        }
+
+        all.putAll(shared.asMap());
+
+        if (overrides != null) {
+            for (Entry<String, String> entry : overrides.entrySet()) {
+                if (entry.getValue() == null) {
+                    all.remove(entry.getKey());
+                } else {
+                    all.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        return all;
     }
 }
@@ -0,0 +1,16 @@
+package com.strategicgains.hyperexpress.expand;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.strategicgains.hyperexpress.domain.Resource;
+
+/**
+ * Expands one rel for a batch of resources, possibly concurrently with the other rels and batches of the same
+ * request. Implementations must not modify the given resources; instead, the returned list holds, in the same order
+ * as the resources, a fragment resource per resource (or null) whose links and embedded resources the
+ * {@link Expander} adds to it once every rel has completed.
+ */
+public interface AsyncExpansionCallback {
+    Future<List<Resource>> expand(String rel, Expansion expansion, List<Resource> resources);
+}
@@ -0,0 +1,13 @@
+package com.strategicgains.hyperexpress.expand;
+
+import java.util.List;
+
+import com.strategicgains.hyperexpress.domain.Resource;
+
+/**
+ * Expands a whole list of resources at once, so a callback can collect the ids it needs from every resource, fetch
+ * the related objects in one lookup and then embed them per resource.
+ */
+public interface BatchExpansionCallback {
+    List<Resource> expand(Expansion expansion, List<Resource> resources);
+}
@@ -0,0 +1,109 @@
+package com.strategicgains.hyperexpress.expand;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Maps types to callbacks, resolving a type to the callback registered for its most specific supertype: the type
+ * itself, then its superclasses nearest first, then its interfaces breadth-first (those of the type before those of
+ * its superclasses). Resolutions are memoized per class in a ClassValue.
+ * <p/>
+ * Registration is copy-on-write: each registration publishes a new snapshot with a fresh ClassValue, so lookups
+ * never lock and never see a partly updated registry.
+ */
+class CallbackRegistry<T> {
+    private volatile Snapshot<T> snapshot = new Snapshot<T>(Collections.<Class<?>, T>emptyMap());
+
+    /**
+     * Returns false, leaving the registry unchanged, if a callback is already registered for exactly this type.
+     */
+    synchronized boolean register(Class<?> type, T callback) {
+        if (snapshot.callbacks.containsKey(type)) {
+            return false;
+        }
+
+        put(type, callback);
+
+        return true;
+    }
+
+    /**
+     * Registers the callback for the type, replacing any registered for exactly this type.
+     */
+    synchronized void put(Class<?> type, T callback) {
+        Map<Class<?>, T> callbacks = new HashMap<Class<?>, T>(snapshot.callbacks);
+        callbacks.put(type, callback);
+        snapshot = new Snapshot<T>(callbacks);
+    }
+
+    T get(Class<?> type) {
+        return snapshot.resolved.get(type).callback;
+    }
+
+    private static class Snapshot<T> {
+        final Map<Class<?>, T> callbacks;
+        final ClassValue<Resolved<T>> resolved = new ClassValue<Resolved<T>>() {
+            protected Resolved<T> computeValue(Class<?> type) {
+                return new Resolved<T>(resolve(type));
+            }
+        };
+
+        Snapshot(Map<Class<?>, T> callbacks) {
+            super();
+            this.callbacks = callbacks;
+        }
+
+        private T resolve(Class<?> type) {
+            if (callbacks.isEmpty()) {
+                return null;
+            }
+
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                T callback = callbacks.get(c);
+
+                if (callback != null) {
+                    return callback;
+                }
+            }
+
+            Queue<Class<?>> interfaces = new ArrayDeque<Class<?>>();
+            Set<Class<?>> seen = new HashSet<Class<?>>();
+
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                Collections.addAll(interfaces, c.getInterfaces());
+            }
+
+            while (!interfaces.isEmpty()) {
+                Class<?> i = interfaces.remove();
+
+                if (!seen.add(i)) {
+                    continue;
+                }
+
+                T callback = callbacks.get(i);
+
+                if (callback != null) {
+                    return callback;
+                }
+
+                Collections.addAll(interfaces, i.getInterfaces());
+            }
+
+            return null;
+        }
+    }
+
+    private static class Resolved<T> {
+        final T callback;
+
+        Resolved(T callback) {
+            super();
+            this.callback = callback;
+        }
+    }
+}
@@ -1,16 +1,40 @@
 package com.strategicgains.hyperexpress.expand;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import com.strategicgains.hyperexpress.RelTypes;
+import com.strategicgains.hyperexpress.domain.Link;
 import com.strategicgains.hyperexpress.domain.Resource;
 import com.strategicgains.hyperexpress.exception.ExpansionException;
 
 public class Expander {
     private static final Expander INSTANCE = new Expander();
 
-    private Map<String, ExpansionCallback> callbacks = new HashMap<String, ExpansionCallback>();
+    private CallbackRegistry<ExpansionCallback> callbacks = new CallbackRegistry<ExpansionCallback>();
+    private CallbackRegistry<BatchExpansionCallback> batchCallbacks = new CallbackRegistry<BatchExpansionCallback>();
+    private CallbackRegistry<AsyncExpansionCallback> asyncCallbacks = new CallbackRegistry<AsyncExpansionCallback>();
+    private ConcurrentMap<String, CallbackRegistry<Class<?>>> embeddedTypes =
+        new ConcurrentHashMap<String, CallbackRegistry<Class<?>>>();
+    private volatile Executor executor = DirectExecutor.INSTANCE;
+    private volatile int asyncBatchSize = Integer.MAX_VALUE;
+    private volatile ExpansionCache cache;
 
     private Expander() {
     }
@@ -23,12 +47,124 @@ public class Expander {
         return INSTANCE._expand(expansion, type, resources);
     }
 
+    /**
+     * Expands the resource through the type's async callback, one task per requested rel, waiting at most the given
+     * time for all of them. Types without an async callback are expanded synchronously. The expansion cache is not
+     * consulted for async callbacks.
+     */
+    public static Resource expandAsync(Expansion expansion, Class<?> type, Resource resource, long timeout,
+        TimeUnit unit) {
+        INSTANCE._expandAsync(expansion, type, Collections.singletonList(resource), timeout, unit);
+
+        return resource;
+    }
+
+    /**
+     * Expands the resources through the type's async callback, one task per requested rel and batch of
+     * asyncBatchSize resources, all started on the configured executor. Waits at most the given time for all of
+     * them; when the deadline passes, the outstanding callbacks and the futures they returned are cancelled, nothing
+     * is added to the resources and an ExpansionException is thrown.
+     */
+    public static List<Resource> expandAsync(Expansion expansion, Class<?> type, List<Resource> resources,
+        long timeout, TimeUnit unit) {
+        return INSTANCE._expandAsync(expansion, type, resources, timeout, unit);
+    }
+
+    /**
+     * Sets the executor that async expansion tasks run on (e.g. a fixed pool, or a virtual-thread-per-task
+     * executor). By default they run one after the other on the calling thread.
+     */
+    public static void executor(Executor executor) {
+        INSTANCE.executor = (executor == null ? DirectExecutor.INSTANCE : executor);
+    }
+
+    /**
+     * Sets the maximum number of resources passed to one async callback invocation.
+     */
+    public static void asyncBatchSize(int size) {
+        if (size < 1) {
+            throw new ExpansionException("Batch size must be positive: " + size);
+        }
+
+        INSTANCE.asyncBatchSize = size;
+    }
+
+    /**
+     * Sets the cache that expanded rels are served from, or null (the default) to always call the callbacks. A
+     * resource's rels are only cached when it has a self link, whose href identifies it; rels that are followed by
+     * a nested expansion path, or that already had embedded resources before expanding, are never cached. Async
+     * expansion does not use the cache.
+     */
+    public static void cache(ExpansionCache cache) {
+        INSTANCE.cache = cache;
+    }
+
+    /**
+     * Declares the type of the resources that expanding the rel embeds in resources of the given type, so nested
+     * expansion paths (e.g. "author.company") can be continued on them. Like callbacks, it applies to subclasses and
+     * implementors that do not declare their own.
+     */
+    public static Expander registerEmbeddedType(Class<?> type, String rel, Class<?> embeddedType) {
+        return INSTANCE._registerEmbeddedType(type, rel, embeddedType);
+    }
+
+    public static Expander registerAsyncCallback(Class<?> type, AsyncExpansionCallback callback) {
+        return INSTANCE._registerAsyncCallback(type, callback);
+    }
+
+    /**
+     * Registers a callback for the type and, unless they have a more specific one, its subclasses and implementors.
+     * Callbacks may be registered while other threads are expanding.
+     */
     public static Expander registerCallback(Class<?> type, ExpansionCallback callback) {
         return INSTANCE._registerCallback(type, callback);
     }
 
+    /**
+     * Registers a callback that expands a list of resources in one call. Lists of this type are always expanded
+     * through it; single resources are too, unless a per-resource callback is also registered.
+     */
+    public static Expander registerBatchCallback(Class<?> type, BatchExpansionCallback callback) {
+        return INSTANCE._registerBatchCallback(type, callback);
+    }
+
+    private Expander _registerEmbeddedType(Class<?> type, String rel, Class<?> embeddedType) {
+        CallbackRegistry<Class<?>> byType = embeddedTypes.get(rel);
+
+        if (byType == null) {
+            CallbackRegistry<Class<?>> created = new CallbackRegistry<Class<?>>();
+            byType = embeddedTypes.putIfAbsent(rel, created);
+
+            if (byType == null) {
+                byType = created;
+            }
+        }
+
+        byType.put(type, embeddedType);
+
+        return this;
+    }
+
+    private Expander _registerAsyncCallback(Class<?> type, AsyncExpansionCallback callback) {
+        if (!asyncCallbacks.register(type, callback)) {
+            throw new ExpansionException("Duplicate async expansion callback registered for type: " +
+                type.getName());
+        }
+
+        return this;
+    }
+
+    private Expander _registerBatchCallback(Class<?> type, BatchExpansionCallback callback) {
+        if (!batchCallbacks.register(type, callback)) {
+            throw new ExpansionException("Duplicate batch expansion callback registered for type: " +
+                type.getName());
+        }
+
+        return this;
+    }
+
     private Expander _registerCallback(Class<?> type, ExpansionCallback callback) {
-        if (callbacks.put(type.getName(), callback) != null) {
+        if (!callbacks.register(type, callback)) {
             throw new ExpansionException("Duplicate expansion callback registered for type: " + type.getName());
         }
 
@@ -40,9 +176,13 @@ public class Expander {
             return resource;
         }
 
-        ExpansionCallback callback = callbacks.get(type.getName());
+        Resource result = expandLevel(expansion, type, resource);
+
+        if (expansion.hasNested()) {
+            expandNested(expansion, type, Collections.singletonList(result));
+        }
 
-        return (callback == null ? resource : callback.expand(expansion, resource));
+        return result;
     }
 
     private List<Resource> _expand(Expansion expansion, Class<?> type, List<Resource> resources) {
@@ -50,7 +190,272 @@ public class Expander {
             return resources;
         }
 
-        ExpansionCallback callback = callbacks.get(type.getName());
+        List<Resource> result = expandLevel(expansion, type, resources);
+
+        if (expansion.hasNested()) {
+            expandNested(expansion, type, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Walks the nested expansion paths level by level. At each level the resources embedded under a rel are
+     * collected across all sibling resources, each embedded resource once, and grouped by type and nested
+     * expansion, so every group is expanded with one callback invocation per level.
+     */
+    private void expandNested(Expansion expansion, Class<?> type, List<Resource> resources) {
+        Map<Target, List<Resource>> level = Collections.singletonMap(new Target(type, expansion), resources);
+
+        while (!level.isEmpty()) {
+            Map<Target, List<Resource>> next = new LinkedHashMap<Target, List<Resource>>();
+            Set<Resource> seen = Collections.newSetFromMap(new IdentityHashMap<Resource, Boolean>());
+
+            for (Entry<Target, List<Resource>> group : level.entrySet()) {
+                Target target = group.getKey();
+
+                for (String rel : target.expansion) {
+                    Expansion nested = target.expansion.getNested(rel);
+                    Class<?> embeddedType = embeddedType(target.type, rel);
+
+                    if (nested == null || nested.isEmpty() || embeddedType == null) {
+                        continue;
+                    }
+
+                    Target child = new Target(embeddedType, nested);
+
+                    for (Resource resource : group.getValue()) {
+                        for (Resource embedded : resource.getResources(rel)) {
+                            if (seen.add(embedded)) {
+                                List<Resource> forChild = next.get(child);
+
+                                if (forChild == null) {
+                                    forChild = new ArrayList<Resource>();
+                                    next.put(child, forChild);
+                                }
+
+                                forChild.add(embedded);
+                            }
+                        }
+                    }
+                }
+            }
+
+            for (Entry<Target, List<Resource>> group : next.entrySet()) {
+                expandLevel(group.getKey().expansion, group.getKey().type, group.getValue());
+            }
+
+            level = next;
+        }
+    }
+
+    private Resource expandLevel(Expansion expansion, Class<?> type, Resource resource) {
+        ExpansionCache expansionCache = cache;
+
+        if (expansionCache == null) {
+            return expandUncached(expansion, type, resource);
+        }
+
+        String id = selfHref(resource);
+        Map<String, ExpansionCache.CachedResources> hits = new LinkedHashMap<String, ExpansionCache.CachedResources>();
+        Expansion missing = findCached(expansionCache, expansion, type, id, hits);
+
+        if (missing.isEmpty()) {
+            return addCached(resource, hits);
+        }
+
+        List<String> cacheable = cacheableRels(expansion, missing, resource, id);
+        Resource result = expandUncached(missing, type, resource);
+        putCached(expansionCache, expansion, type, id, cacheable, result);
+
+        return addCached(result, hits);
+    }
+
+    private List<Resource> expandLevel(Expansion expansion, Class<?> type, List<Resource> resources) {
+        ExpansionCache expansionCache = cache;
+
+        if (expansionCache == null) {
+            return expandUncached(expansion, type, resources);
+        }
+
+        return expandCached(expansionCache, expansion, type, resources);
+    }
+
+    /**
+     * Looks up the cached rels of each resource, expands the remaining rels through the callbacks, one call per
+     * distinct set of missing rels, and caches what they embedded. A batch callback's results replace the resources
+     * they were returned for when it returns one per resource. The cached rels are added to the resulting resources.
+     */
+    private List<Resource> expandCached(ExpansionCache expansionCache, Expansion expansion, Class<?> type,
+        List<Resource> resources) {
+        Map<Expansion, List<Integer>> misses = new LinkedHashMap<Expansion, List<Integer>>();
+        String[] ids = new String[resources.size()];
+        List<Map<String, ExpansionCache.CachedResources>> hits =
+            new ArrayList<Map<String, ExpansionCache.CachedResources>>(resources.size());
+
+        for (int i = 0; i < resources.size(); ++i) {
+            ids[i] = selfHref(resources.get(i));
+            hits.add(new LinkedHashMap<String, ExpansionCache.CachedResources>());
+            Expansion missing = findCached(expansionCache, expansion, type, ids[i], hits.get(i));
+
+            if (!missing.isEmpty()) {
+                List<Integer> positions = misses.get(missing);
+
+                if (positions == null) {
+                    positions = new ArrayList<Integer>();
+                    misses.put(missing, positions);
+                }
+
+                positions.add(i);
+            }
+        }
+
+        List<Resource> results = new ArrayList<Resource>(resources);
+
+        for (Entry<Expansion, List<Integer>> group : misses.entrySet()) {
+            Expansion missing = group.getKey();
+            List<Integer> positions = group.getValue();
+            List<Resource> forMissing = new ArrayList<Resource>(positions.size());
+            List<List<String>> cacheable = new ArrayList<List<String>>(positions.size());
+
+            for (int position : positions) {
+                forMissing.add(resources.get(position));
+                cacheable.add(cacheableRels(expansion, missing, resources.get(position), ids[position]));
+            }
+
+            List<Resource> expanded = expandUncached(missing, type, forMissing);
+            boolean isAligned = (expanded != null && expanded.size() == forMissing.size());
+
+            for (int j = 0; j < positions.size(); ++j) {
+                Resource result = (isAligned ? expanded.get(j) : forMissing.get(j));
+                results.set(positions.get(j), result);
+                putCached(expansionCache, expansion, type, ids[positions.get(j)], cacheable.get(j), result);
+            }
+        }
+
+        for (int i = 0; i < results.size(); ++i) {
+            addCached(results.get(i), hits.get(i));
+        }
+
+        return results;
+    }
+
+    /**
+     * Puts the cached resources for each rel that has them into hits and returns the rels still to expand: all of
+     * them when the resource has no self link to identify it.
+     */
+    private Expansion findCached(ExpansionCache expansionCache, Expansion expansion, Class<?> type, String id,
+        Map<String, ExpansionCache.CachedResources> hits) {
+        if (id == null) {
+            return expansion;
+        }
+
+        Expansion missing = new Expansion(expansion.getMediaType());
+
+        for (String rel : expansion) {
+            ExpansionCache.CachedResources cached = (expansion.getNested(rel) == null ?
+                expansionCache.get(type, rel, id, expansion.getMediaType()) : null);
+
+            if (cached == null) {
+                missing.addExpansion(rel);
+            } else {
+                hits.put(rel, cached);
+            }
+        }
+
+        return missing;
+    }
+
+    /**
+     * Adds copies of the cached resources to the resource the expansion returned, which a callback may have
+     * replaced.
+     */
+    private static Resource addCached(Resource resource, Map<String, ExpansionCache.CachedResources> hits) {
+        if (resource == null) {
+            return null;
+        }
+
+        for (Entry<String, ExpansionCache.CachedResources> hit : hits.entrySet()) {
+            for (Resource embedded : hit.getValue().copyResources()) {
+                resource.addResource(hit.getKey(), embedded, hit.getValue().isMultiple);
+            }
+        }
+
+        return resource;
+    }
+
+    /**
+     * Returns the missing rels whose expansion may be cached. A rel is cacheable when it has no nested expansion and
+     * the resource has nothing embedded under it yet, so everything under it after the callback is that callback's
+     * fragment.
+     */
+    private static List<String> cacheableRels(Expansion expansion, Expansion missing, Resource resource,
+        String id) {
+        List<String> rels = new ArrayList<String>();
+
+        if (id == null) {
+            return rels;
+        }
+
+        for (String rel : missing) {
+            if (expansion.getNested(rel) == null && resource.getResources(rel).isEmpty()) {
+                rels.add(rel);
+            }
+        }
+
+        return rels;
+    }
+
+    private static void putCached(ExpansionCache expansionCache, Expansion expansion, Class<?> type, String id,
+        List<String> rels, Resource expanded) {
+        if (expanded == null) {
+            return;
+        }
+
+        for (String rel : rels) {
+            expansionCache.put(type, rel, id, expansion.getMediaType(), expanded.getResources(rel),
+                expanded.isMultipleResources(rel));
+        }
+    }
+
+    private static String selfHref(Resource resource) {
+        for (Link link : resource.getLinks()) {
+            if (RelTypes.SELF.equals(link.getRel())) {
+                return link.getHref();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Expands one resource: through the type's per-resource callback, whose result is returned, or else its batch
+     * callback.
+     */
+    private Resource expandUncached(Expansion expansion, Class<?> type, Resource resource) {
+        ExpansionCallback callback = callbacks.get(type);
+
+        if (callback != null) {
+            return callback.expand(expansion, resource);
+        }
+
+        BatchExpansionCallback batchCallback = batchCallbacks.get(type);
+
+        if (batchCallback != null) {
+            batchCallback.expand(expansion, Collections.singletonList(resource));
+        }
+
+        return resource;
+    }
+
+    private List<Resource> expandUncached(Expansion expansion, Class<?> type, List<Resource> resources) {
+        BatchExpansionCallback batchCallback = batchCallbacks.get(type);
+
+        if (batchCallback != null) {
+            return batchCallback.expand(expansion, resources);
+        }
+
+        ExpansionCallback callback = callbacks.get(type);
 
         if (callback == null) {
             return resources;
@@ -62,4 +467,182 @@ public class Expander {
 
         return resources;
     }
+
+    private List<Resource> _expandAsync(Expansion expansion, Class<?> type, List<Resource> resources, long timeout,
+        TimeUnit unit) {
+        if (expansion == null || expansion.isEmpty() || resources.isEmpty()) {
+            return resources;
+        }
+
+        AsyncExpansionCallback callback = asyncCallbacks.get(type);
+
+        if (callback == null) {
+            return _expand(expansion, type, resources);
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<ExpansionTask> tasks = new ArrayList<ExpansionTask>();
+        Executor taskExecutor = executor;
+        int batchSize = asyncBatchSize;
+
+        for (String rel : expansion) {
+            for (int from = 0; from < resources.size(); from += batchSize) {
+                List<Resource> batch = resources.subList(from, Math.min(resources.size(), from + batchSize));
+                ExpansionTask task = new ExpansionTask(callback, rel, expansion, batch);
+                tasks.add(task);
+                taskExecutor.execute(task);
+            }
+        }
+
+        List<List<Resource>> results = new ArrayList<List<Resource>>(tasks.size());
+
+        try {
+            for (ExpansionTask task : tasks) {
+                Future<List<Resource>> future = task.get(Math.max(0, deadline - System.nanoTime()),
+                        TimeUnit.NANOSECONDS);
+                results.add(future == null ? null : future.get(Math.max(0, deadline - System.nanoTime()),
+                        TimeUnit.NANOSECONDS));
+            }
+        } catch (TimeoutException e) {
+            cancel(tasks);
+            throw new ExpansionException("Expansion of " + type.getName() + " timed out after " + timeout + " " +
+                unit, e);
+        } catch (InterruptedException e) {
+            cancel(tasks);
+            Thread.currentThread().interrupt();
+            throw new ExpansionException(e);
+        } catch (ExecutionException e) {
+            cancel(tasks);
+            throw new ExpansionException(e.getCause());
+        } catch (CancellationException e) {
+            cancel(tasks);
+            throw new ExpansionException(e);
+        }
+
+        for (int i = 0; i < tasks.size(); ++i) {
+            merge(tasks.get(i).batch, results.get(i));
+        }
+
+        return resources;
+    }
+
+    /**
+     * Adds each fragment's links and embedded resources to the resource at the same position.
+     */
+    private void merge(List<Resource> resources, List<Resource> fragments) {
+        if (fragments == null) {
+            return;
+        }
+
+        for (int i = 0; i < resources.size() && i < fragments.size(); ++i) {
+            Resource fragment = fragments.get(i);
+
+            if (fragment == null) {
+                continue;
+            }
+
+            Resource resource = resources.get(i);
+
+            for (Link link : fragment.getLinks()) {
+                resource.addLink(link, fragment.isMultipleLinks(link.getRel()));
+            }
+
+            for (Entry<String, List<Resource>> entry : fragment.getResources().entrySet()) {
+                if (fragment.isMultipleResources(entry.getKey())) {
+                    resource.addResources(entry.getKey(), entry.getValue());
+                } else {
+                    for (Resource embedded : entry.getValue()) {
+                        resource.addResource(entry.getKey(), embedded);
+                    }
+                }
+            }
+        }
+    }
+
+    private void cancel(List<ExpansionTask> tasks) {
+        for (ExpansionTask task : tasks) {
+            task.cancelExpansion();
+        }
+    }
+
+    /**
+     * Calls the async callback for one rel and batch on the executor and completes with the future it returns;
+     * the calling thread waits on that future directly, so no executor thread is held while the expansion runs.
+     */
+    private static class ExpansionTask extends FutureTask<Future<List<Resource>>> {
+        private final List<Resource> batch;
+        private volatile Future<List<Resource>> expansion;
+
+        ExpansionTask(final AsyncExpansionCallback callback, final String rel, final Expansion expansion,
+            final List<Resource> batch) {
+            super(new Callable<Future<List<Resource>>>() {
+                public Future<List<Resource>> call() {
+                    return callback.expand(rel, expansion, batch);
+                }
+            });
+            this.batch = batch;
+        }
+
+        protected void set(Future<List<Resource>> future) {
+            expansion = future;
+            super.set(future);
+
+            if (future != null && isCancelled()) {
+                future.cancel(true);
+            }
+        }
+
+        /**
+         * Cancels the callback invocation if it has not completed and the future it returned if it has.
+         */
+        void cancelExpansion() {
+            cancel(true);
+            Future<List<Resource>> future = expansion;
+
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private Class<?> embeddedType(Class<?> type, String rel) {
+        CallbackRegistry<Class<?>> byType = embeddedTypes.get(rel);
+
+        return (byType == null ? null : byType.get(type));
+    }
+
+    /**
+     * A type and the expansion to apply to its resources: the grouping key for one level of nested expansion.
+     */
+    private static class Target {
+        private final Class<?> type;
+        private final Expansion expansion;
+
+        Target(Class<?> type, Expansion expansion) {
+            this.type = type;
+            this.expansion = expansion;
+        }
+
+        public int hashCode() {
+            return 31 * type.hashCode() + expansion.hashCode();
+        }
+
+        public boolean equals(Object that) {
+            if (!(that instanceof Target)) {
+                return false;
+            }
+
+            Target other = (Target) that;
+
+            return (type == other.type && expansion.equals(other.expansion));
+        }
+    }
+
+    private static class DirectExecutor implements Executor {
+        private static final Executor INSTANCE = new DirectExecutor();
+
+        public void execute(Runnable command) {
+            command.run();
+        }
+    }
 }
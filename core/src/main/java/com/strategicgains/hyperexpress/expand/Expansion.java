@@ -1,13 +1,21 @@
 package com.strategicgains.hyperexpress.expand;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * The rels to expand on a resource. Each rel may carry a nested Expansion for the resources embedded under it, so
+ * "author.company,comments.author" expands author and comments here, company on the embedded authors and author on
+ * the embedded comments.
+ */
 public class Expansion implements Iterable<String> {
     private Set<String> rels;
+    private Map<String, Expansion> nested;
 
     private String mediaType;
 
@@ -21,6 +29,43 @@ public class Expansion implements Iterable<String> {
         this.rels = (rels == null ? null : new HashSet<String>(rels));
     }
 
+    /**
+     * Parses a comma-separated list of dotted rel paths (e.g. an expand query-string parameter) in a single pass.
+     * Whitespace around rels and empty rels are ignored.
+     */
+    public static Expansion parse(String mediaType, String paths) {
+        Expansion root = new Expansion(mediaType);
+
+        if (paths == null) {
+            return root;
+        }
+
+        Expansion current = root;
+        int start = 0;
+        int length = paths.length();
+
+        for (int i = 0; i <= length; ++i) {
+            char c = (i == length ? ',' : paths.charAt(i));
+
+            if (c != ',' && c != '.') {
+                continue;
+            }
+
+            String rel = trim(paths, start, i);
+            start = i + 1;
+
+            if (rel != null) {
+                current = (c == '.' ? current.acquireNested(rel) : current.addExpansion(rel));
+            }
+
+            if (c == ',') {
+                current = root;
+            }
+        }
+
+        return root;
+    }
+
     public Expansion addExpansion(String rel) {
         if (rels == null) {
             rels = new HashSet<String>();
@@ -31,6 +76,24 @@ public class Expansion implements Iterable<String> {
         return this;
     }
 
+    /**
+     * Adds a dotted rel path, e.g. "author.company".
+     */
+    public Expansion addExpansionPath(String path) {
+        Expansion current = this;
+        int start = 0;
+        int dot;
+
+        while ((dot = path.indexOf('.', start)) >= 0) {
+            current = current.acquireNested(path.substring(start, dot));
+            start = dot + 1;
+        }
+
+        current.addExpansion(path.substring(start));
+
+        return this;
+    }
+
     public boolean isEmpty() {
         return (rels == null || rels.isEmpty());
     }
@@ -39,6 +102,17 @@ public class Expansion implements Iterable<String> {
         return (isEmpty() ? false : rels.contains(rel));
     }
 
+    /**
+     * Returns the expansion for the resources embedded under the rel, or null if nothing below it is expanded.
+     */
+    public Expansion getNested(String rel) {
+        return (nested == null ? null : nested.get(rel));
+    }
+
+    public boolean hasNested() {
+        return (nested != null && !nested.isEmpty());
+    }
+
     public Iterator<String> iterator() {
         return (isEmpty() ? Collections.<String>emptySet().iterator() : rels.iterator());
     }
@@ -46,4 +120,62 @@ public class Expansion implements Iterable<String> {
     public String getMediaType() {
         return mediaType;
     }
+
+    public int hashCode() {
+        int result = (mediaType == null ? 0 : mediaType.hashCode());
+        result = 31 * result + (isEmpty() ? 0 : rels.hashCode());
+
+        return 31 * result + (hasNested() ? nested.hashCode() : 0);
+    }
+
+    public boolean equals(Object that) {
+        if (this == that) {
+            return true;
+        }
+
+        if (!(that instanceof Expansion)) {
+            return false;
+        }
+
+        Expansion other = (Expansion) that;
+
+        if (mediaType == null ? other.mediaType != null : !mediaType.equals(other.mediaType)) {
+            return false;
+        }
+
+        if (!(isEmpty() ? other.isEmpty() : rels.equals(other.rels))) {
+            return false;
+        }
+
+        return (hasNested() ? nested.equals(other.nested) : !other.hasNested());
+    }
+
+    private Expansion acquireNested(String rel) {
+        addExpansion(rel);
+
+        if (nested == null) {
+            nested = new HashMap<String, Expansion>();
+        }
+
+        Expansion child = nested.get(rel);
+
+        if (child == null) {
+            child = new Expansion(mediaType);
+            nested.put(rel, child);
+        }
+
+        return child;
+    }
+
+    private static String trim(String s, int start, int end) {
+        while (start < end && Character.isWhitespace(s.charAt(start))) {
+            ++start;
+        }
+
+        while (end > start && Character.isWhitespace(s.charAt(end - 1))) {
+            --end;
+        }
+
+        return (start == end ? null : s.substring(start, end));
+    }
 }
@@ -0,0 +1,236 @@
+package com.strategicgains.hyperexpress.expand;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.strategicgains.hyperexpress.domain.Link;
+import com.strategicgains.hyperexpress.domain.Resource;
+import com.strategicgains.hyperexpress.exception.ExpansionException;
+
+/**
+ * Remembers the resources an expansion embedded under a rel, keyed by (type, rel, target identity, media type), so
+ * the Expander can add them again without calling the callback. Entries expire after the TTL and, once the total
+ * weight (the number of cached embedded resources, at least one per entry) exceeds the maximum, the least recently
+ * used entries are evicted.
+ * <p/>
+ * Resources are copied when they are cached and again whenever they are served, so modifying an expanded resource
+ * never changes what the cache holds. Properties are copied by reference. Resources whose class has no no-arg
+ * constructor cannot be copied and are not cached.
+ */
+public class ExpansionCache {
+    private final long ttlNanos;
+    private final long maxWeight;
+    private final LinkedHashMap<Key, CachedResources> entries = new LinkedHashMap<Key, CachedResources>(16, 0.75f,
+        true);
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public ExpansionCache(long ttl, TimeUnit unit, long maxWeight) {
+        super();
+
+        if (ttl <= 0 || maxWeight <= 0) {
+            throw new ExpansionException("TTL and maximum weight must be positive");
+        }
+
+        this.ttlNanos = unit.toNanos(ttl);
+        this.maxWeight = maxWeight;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of entries removed because they expired or to stay within the maximum weight.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    synchronized CachedResources get(Class<?> type, String rel, String id, String mediaType) {
+        Key key = new Key(type.getName(), rel, id, mediaType);
+        CachedResources cached = entries.get(key);
+
+        if (cached != null && System.nanoTime() - cached.createdAt >= ttlNanos) {
+            remove(key);
+            ++evictionCount;
+            cached = null;
+        }
+
+        if (cached == null) {
+            ++missCount;
+        } else {
+            ++hitCount;
+        }
+
+        return cached;
+    }
+
+    synchronized void put(Class<?> type, String rel, String id, String mediaType, List<Resource> resources,
+        boolean isMultiple) {
+        List<Resource> copies = copyOf(resources);
+
+        if (copies == null) {
+            return;
+        }
+
+        Key key = new Key(type.getName(), rel, id, mediaType);
+        remove(key);
+        CachedResources cached = new CachedResources(copies, isMultiple, System.nanoTime());
+        entries.put(key, cached);
+        weight += cached.weight();
+
+        for (Iterator<CachedResources> i = entries.values().iterator(); weight > maxWeight && i.hasNext();) {
+            weight -= i.next().weight();
+            i.remove();
+            ++evictionCount;
+        }
+    }
+
+    private void remove(Key key) {
+        CachedResources removed = entries.remove(key);
+
+        if (removed != null) {
+            weight -= removed.weight();
+        }
+    }
+
+    /**
+     * Returns deep copies of the resources, or null if any of them cannot be instantiated.
+     */
+    private static List<Resource> copyOf(List<Resource> resources) {
+        List<Resource> copies = new ArrayList<Resource>(resources.size());
+
+        for (Resource resource : resources) {
+            Resource copy = copyOf(resource);
+
+            if (copy == null) {
+                return null;
+            }
+
+            copies.add(copy);
+        }
+
+        return copies;
+    }
+
+    private static Resource copyOf(Resource resource) {
+        Resource copy;
+
+        try {
+            Constructor<? extends Resource> constructor = resource.getClass().getDeclaredConstructor();
+            constructor.setAccessible(true);
+            copy = constructor.newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+
+        copy.addNamespaces(resource.getNamespaces());
+
+        for (Link link : resource.getLinks()) {
+            copy.addLink(link.clone(), resource.isMultipleLinks(link.getRel()));
+        }
+
+        for (Map.Entry<String, Object> property : resource.getProperties().entrySet()) {
+            copy.addProperty(property.getKey(), property.getValue());
+        }
+
+        for (Map.Entry<String, List<Resource>> entry : resource.getResources().entrySet()) {
+            boolean isMultiple = resource.isMultipleResources(entry.getKey());
+
+            for (Resource embedded : entry.getValue()) {
+                Resource embeddedCopy = copyOf(embedded);
+
+                if (embeddedCopy == null) {
+                    return null;
+                }
+
+                copy.addResource(entry.getKey(), embeddedCopy, isMultiple);
+            }
+        }
+
+        return copy;
+    }
+
+    static class CachedResources {
+        private final List<Resource> resources;
+        final boolean isMultiple;
+        final long createdAt;
+
+        CachedResources(List<Resource> resources, boolean isMultiple, long createdAt) {
+            super();
+            this.resources = resources;
+            this.isMultiple = isMultiple;
+            this.createdAt = createdAt;
+        }
+
+        /**
+         * Returns fresh copies of the cached resources, for the caller to embed and modify.
+         */
+        List<Resource> copyResources() {
+            return copyOf(resources);
+        }
+
+        int weight() {
+            return Math.max(1, resources.size());
+        }
+    }
+
+    private static class Key {
+        private final String type;
+        private final String rel;
+        private final String id;
+        private final String mediaType;
+
+        Key(String type, String rel, String id, String mediaType) {
+            super();
+            this.type = type;
+            this.rel = rel;
+            this.id = id;
+            this.mediaType = mediaType;
+        }
+
+        public int hashCode() {
+            int result = type.hashCode();
+            result = 31 * result + rel.hashCode();
+            result = 31 * result + id.hashCode();
+
+            return 31 * result + (mediaType == null ? 0 : mediaType.hashCode());
+        }
+
+        public boolean equals(Object that) {
+            if (!(that instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) that;
+
+            return (type.equals(other.type) && rel.equals(other.rel) && id.equals(other.id) &&
+                (mediaType == null ? other.mediaType == null : mediaType.equals(other.mediaType)));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.strategicgains.hyperexpress.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A string pattern parsed once into alternating literal and token segments. Rendering substitutes bound token
+ * values in a single pass over the segments, leaving unbound tokens in place exactly as they appeared in the
+ * pattern.
+ */
+public class CompiledTemplate {
+    public static final String DEFAULT_START_DELIMITER = "{";
+    public static final String DEFAULT_END_DELIMITER = "}";
+
+    private static final TemplateCache<CompiledTemplate> CACHE = new TemplateCache<CompiledTemplate>();
+
+    private final String pattern;
+    private final String[] literals;
+    private final String[] tokens;
+    private final String[] placeholders;
+
+    private CompiledTemplate(String pattern, String[] literals, String[] tokens, String[] placeholders) {
+        super();
+        this.pattern = pattern;
+        this.literals = literals;
+        this.tokens = tokens;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Returns the compiled pattern from a bounded, least-recently-used cache. Callers that render the same pattern
+     * repeatedly should hold on to the template instead.
+     */
+    public static CompiledTemplate compile(String pattern) {
+        CompiledTemplate template = CACHE.get(pattern);
+
+        if (template == null) {
+            template = compile(pattern, DEFAULT_START_DELIMITER, DEFAULT_END_DELIMITER);
+            CACHE.put(pattern, template);
+        }
+
+        return template;
+    }
+
+    public static CompiledTemplate compile(String pattern, String startDelimiter, String endDelimiter) {
+        if (pattern == null) {
+            throw new NullPointerException("Template pattern cannot be null");
+        }
+
+        String[] literals = new String[4];
+        String[] tokens = new String[3];
+        String[] placeholders = new String[3];
+        int count = 0;
+        int i = 0;
+
+        while (true) {
+            int start = pattern.indexOf(startDelimiter, i);
+
+            if (start < 0) {
+                break;
+            }
+
+            int end = pattern.indexOf(endDelimiter, start + startDelimiter.length());
+
+            if (end < 0) {
+                break;
+            }
+
+            // Bind to the innermost start delimiter, so "{x{a}" yields the literal "{x" and the token "a".
+            start = pattern.lastIndexOf(startDelimiter, end - startDelimiter.length());
+
+            if (count == tokens.length) {
+                tokens = Arrays.copyOf(tokens, count * 2);
+                placeholders = Arrays.copyOf(placeholders, count * 2);
+                literals = Arrays.copyOf(literals, count * 2 + 1);
+            }
+
+            literals[count] = pattern.substring(i, start);
+            tokens[count] = pattern.substring(start + startDelimiter.length(), end);
+            i = end + endDelimiter.length();
+            placeholders[count] = pattern.substring(start, i);
+            ++count;
+        }
+
+        literals[count] = pattern.substring(i);
+
+        return new CompiledTemplate(pattern, Arrays.copyOf(literals, count + 1), Arrays.copyOf(tokens, count),
+            Arrays.copyOf(placeholders, count));
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    public boolean hasTokens() {
+        return (tokens.length > 0);
+    }
+
+    public List<String> tokens() {
+        return Collections.unmodifiableList(Arrays.asList(tokens));
+    }
+
+    public String format(Map<String, String> values) {
+        if (tokens.length == 0) {
+            return pattern;
+        }
+
+        StringBuilder sb = new StringBuilder(pattern.length() + 16 * tokens.length);
+        formatTo(sb, values);
+
+        return sb.toString();
+    }
+
+    /**
+     * Appends the rendered template to the given builder.
+     *
+     * @return true if every token in the template was bound, otherwise false.
+     */
+    public boolean formatTo(StringBuilder sb, Map<String, String> values) {
+        boolean isBound = true;
+
+        for (int i = 0; i < tokens.length; ++i) {
+            sb.append(literals[i]);
+            String value = values.get(tokens[i]);
+
+            if (value == null) {
+                sb.append(placeholders[i]);
+                isBound = false;
+            } else {
+                sb.append(value);
+            }
+        }
+
+        sb.append(literals[tokens.length]);
+
+        return isBound;
+    }
+
+    public String toString() {
+        return pattern;
+    }
+}
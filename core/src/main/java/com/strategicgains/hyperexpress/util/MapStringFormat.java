@@ -2,14 +2,14 @@ package com.strategicgains.hyperexpress.util;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 
 public class MapStringFormat {
-    private static final String DEFAULT_END_DELIMITER = "}";
-    private static final String DEFAULT_START_DELIMITER = "{";
+    private static final String DEFAULT_END_DELIMITER = CompiledTemplate.DEFAULT_END_DELIMITER;
+    private static final String DEFAULT_START_DELIMITER = CompiledTemplate.DEFAULT_START_DELIMITER;
 
     private String endDelimiter;
     private String startDelimiter;
+    private TemplateCache<CompiledTemplate> templates = new TemplateCache<CompiledTemplate>();
 
     public MapStringFormat() {
         this(DEFAULT_START_DELIMITER, DEFAULT_END_DELIMITER);
@@ -44,6 +44,7 @@ public class MapStringFormat {
 
     public void endDelimiter(String delimiter) {
         endDelimiter = delimiter;
+        templates.clear();
     }
 
     public String startDelimiter() {
@@ -52,6 +53,7 @@ public class MapStringFormat {
 
     public void startDelimiter(String delimiter) {
         startDelimiter = delimiter;
+        templates.clear();
     }
 
     public String format(String string, String... parameters) {
@@ -63,25 +65,25 @@ public class MapStringFormat {
     }
 
     public String format(String string, Map<String, String> parameters) {
-        String result = string;
-        StringBuilder sb = new StringBuilder();
+        return compile(string).format(parameters);
+    }
 
-        for (Entry<String, String> entry : parameters.entrySet()) {
-            constructParameterName(sb, entry.getKey());
-            result = result.replaceAll(sb.toString(), entry.getValue());
+    public CompiledTemplate compile(String string) {
+        if (isDefaultDelimiters()) {
+            return CompiledTemplate.compile(string);
         }
 
-        return result;
-    }
+        CompiledTemplate template = templates.get(string);
 
-    private String constructParameterName(StringBuilder sb, String key) {
-        sb.setLength(0);
-        sb.append('\\');
-        sb.append(startDelimiter());
-        sb.append(key);
-        sb.append('\\');
-        sb.append(endDelimiter());
+        if (template == null) {
+            template = CompiledTemplate.compile(string, startDelimiter, endDelimiter);
+            templates.put(string, template);
+        }
+
+        return template;
+    }
 
-        return sb.toString();
+    private boolean isDefaultDelimiters() {
+        return (DEFAULT_START_DELIMITER.equals(startDelimiter) && DEFAULT_END_DELIMITER.equals(endDelimiter));
     }
 }
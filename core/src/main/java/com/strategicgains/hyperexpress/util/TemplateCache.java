@@ -0,0 +1,33 @@
+package com.strategicgains.hyperexpress.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of compiled templates by pattern that evicts the least recently used pattern once full, so
+ * one-off patterns cannot crowd out the ones in regular use. Builders hold on to their own compiled templates;
+ * this cache only serves callers that pass pattern strings.
+ */
+final class TemplateCache<T> {
+    static final int MAX_TEMPLATES = 1024;
+
+    private final Map<String, T> templates = new LinkedHashMap<String, T>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+            return (size() > MAX_TEMPLATES);
+        }
+    };
+
+    synchronized T get(String pattern) {
+        return templates.get(pattern);
+    }
+
+    synchronized void put(String pattern, T template) {
+        templates.put(pattern, template);
+    }
+
+    synchronized void clear() {
+        templates.clear();
+    }
+}
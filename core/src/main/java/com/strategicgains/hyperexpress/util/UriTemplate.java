@@ -0,0 +1,513 @@
+package com.strategicgains.hyperexpress.util;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * An RFC 6570 URI Template (levels 1 through 4), compiled once into an expansion plan of literal segments and
+ * expressions. Expansion percent-encodes and joins variable values in a single pass into one builder.
+ * <p/>
+ * Variable values may be a String (or any Object, using toString()), a Collection (list value) or a Map
+ * (associative array value). Null values, empty collections and empty maps are undefined and are omitted from
+ * the expansion.
+ */
+public class UriTemplate {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final String RESERVED = ":/?#[]@!$&'()*+,;=";
+    private static final TemplateCache<UriTemplate> CACHE = new TemplateCache<UriTemplate>();
+
+    public interface Variables {
+        Object get(String name);
+    }
+
+    private final String pattern;
+    private final Object[] segments;
+    private final List<String> variableNames;
+
+    private UriTemplate(String pattern, Object[] segments, List<String> variableNames) {
+        super();
+        this.pattern = pattern;
+        this.segments = segments;
+        this.variableNames = variableNames;
+    }
+
+    /**
+     * Returns the compiled template from a bounded, least-recently-used cache. Callers that expand the same template
+     * repeatedly should hold on to it instead.
+     */
+    public static UriTemplate compile(String pattern) {
+        UriTemplate template = CACHE.get(pattern);
+
+        if (template == null) {
+            template = parse(pattern);
+            CACHE.put(pattern, template);
+        }
+
+        return template;
+    }
+
+    /**
+     * Compiles the pattern, without caching, if it is a valid URI Template that goes beyond simple "{name}"
+     * expressions: an operator, a variable list or a modifier. Otherwise returns null, for the pattern to be treated
+     * as a plain token pattern.
+     */
+    public static UriTemplate compileExtended(String pattern) {
+        if (pattern == null || !hasExtendedExpression(pattern)) {
+            return null;
+        }
+
+        try {
+            return parse(pattern);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    public List<String> variableNames() {
+        return variableNames;
+    }
+
+    public String expand(final Map<String, ?> values) {
+        return expand(new Variables() {
+            public Object get(String name) {
+                return values.get(name);
+            }
+        });
+    }
+
+    public String expand(Variables variables) {
+        StringBuilder sb = new StringBuilder(pattern.length() + 32);
+        expandTo(sb, variables);
+
+        return sb.toString();
+    }
+
+    public void expandTo(StringBuilder sb, Variables variables) {
+        for (Object segment : segments) {
+            if (segment instanceof String) {
+                sb.append((String) segment);
+            } else {
+                ((Expression) segment).expandTo(sb, variables);
+            }
+        }
+    }
+
+    public String toString() {
+        return pattern;
+    }
+
+    private static UriTemplate parse(String pattern) {
+        if (pattern == null) {
+            throw new NullPointerException("URI template cannot be null");
+        }
+
+        List<Object> segments = new ArrayList<Object>();
+        List<String> names = new ArrayList<String>();
+        int i = 0;
+
+        while (i < pattern.length()) {
+            int start = pattern.indexOf('{', i);
+
+            if (start < 0) {
+                segments.add(pattern.substring(i));
+                break;
+            }
+
+            int end = pattern.indexOf('}', start);
+
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated expression in URI template: " + pattern);
+            }
+
+            if (start > i) {
+                segments.add(pattern.substring(i, start));
+            }
+
+            Expression expression = Expression.parse(pattern, start + 1, end);
+            segments.add(expression);
+
+            for (VarSpec varSpec : expression.varSpecs) {
+                names.add(varSpec.name);
+            }
+
+            i = end + 1;
+        }
+
+        return new UriTemplate(pattern, segments.toArray(), Collections.unmodifiableList(names));
+    }
+
+    private static boolean hasExtendedExpression(String pattern) {
+        int start = pattern.indexOf('{');
+
+        while (start >= 0 && start + 1 < pattern.length()) {
+            int end = pattern.indexOf('}', start);
+
+            if (end < 0) {
+                return false;
+            }
+
+            if (Operator.of(pattern.charAt(start + 1)) != null) {
+                return true;
+            }
+
+            for (int i = start + 1; i < end; ++i) {
+                char c = pattern.charAt(i);
+
+                if (c == ',' || c == '*' || c == ':') {
+                    return true;
+                }
+            }
+
+            start = pattern.indexOf('{', end);
+        }
+
+        return false;
+    }
+
+    private static void encode(StringBuilder sb, String value, boolean allowReserved) {
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+
+            if (isUnreserved(c)) {
+                sb.append(c);
+            } else if (allowReserved && RESERVED.indexOf(c) >= 0) {
+                sb.append(c);
+            } else if (allowReserved && c == '%' && isPercentEncoded(value, i)) {
+                sb.append(value, i, i + 3);
+                i += 2;
+            } else {
+                int next = i + 1;
+
+                if (Character.isHighSurrogate(c) && next < value.length() &&
+                        Character.isLowSurrogate(value.charAt(next))) {
+                    ++next;
+                }
+
+                for (byte b : value.substring(i, next).getBytes(UTF_8)) {
+                    sb.append('%');
+                    sb.append(HEX[(b >> 4) & 0x0F]);
+                    sb.append(HEX[b & 0x0F]);
+                }
+
+                i = next - 1;
+            }
+        }
+    }
+
+    private static boolean isUnreserved(char c) {
+        return ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' ||
+            c == '.' || c == '_' || c == '~');
+    }
+
+    private static boolean isPercentEncoded(String value, int i) {
+        return (i + 2 < value.length() && isHex(value.charAt(i + 1)) && isHex(value.charAt(i + 2)));
+    }
+
+    private static boolean isHex(char c) {
+        return ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'F') || (c >= 'a' && c <= 'f'));
+    }
+
+    private enum Operator {
+        SIMPLE("", ",", false, "", false),
+        RESERVED("", ",", false, "", true),
+        FRAGMENT("#", ",", false, "", true),
+        LABEL(".", ".", false, "", false),
+        PATH("/", "/", false, "", false),
+        PATH_PARAMETER(";", ";", true, "", false),
+        QUERY("?", "&", true, "=", false),
+        QUERY_CONTINUATION("&", "&", true, "=", false);
+
+        private final String first;
+        private final String separator;
+        private final boolean isNamed;
+        private final String ifEmpty;
+        private final boolean allowReserved;
+
+        private Operator(String first, String separator, boolean isNamed, String ifEmpty, boolean allowReserved) {
+            this.first = first;
+            this.separator = separator;
+            this.isNamed = isNamed;
+            this.ifEmpty = ifEmpty;
+            this.allowReserved = allowReserved;
+        }
+
+        static Operator of(char c) {
+            switch (c) {
+            case '+':
+                return RESERVED;
+
+            case '#':
+                return FRAGMENT;
+
+            case '.':
+                return LABEL;
+
+            case '/':
+                return PATH;
+
+            case ';':
+                return PATH_PARAMETER;
+
+            case '?':
+                return QUERY;
+
+            case '&':
+                return QUERY_CONTINUATION;
+
+            default:
+                return null;
+            }
+        }
+    }
+
+    private static class VarSpec {
+        private final String name;
+        private final int prefix;
+        private final boolean isExploded;
+
+        VarSpec(String name, int prefix, boolean isExploded) {
+            this.name = name;
+            this.prefix = prefix;
+            this.isExploded = isExploded;
+        }
+
+        static VarSpec parse(String spec, String pattern) {
+            if (spec.endsWith("*")) {
+                return new VarSpec(validName(spec.substring(0, spec.length() - 1), pattern), 0, true);
+            }
+
+            int colon = spec.indexOf(':');
+
+            if (colon < 0) {
+                return new VarSpec(validName(spec, pattern), 0, false);
+            }
+
+            int prefix;
+
+            try {
+                prefix = Integer.parseInt(spec.substring(colon + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid prefix modifier '" + spec + "' in URI template: " +
+                    pattern);
+            }
+
+            if (prefix <= 0 || prefix >= 10000) {
+                throw new IllegalArgumentException("Invalid prefix modifier '" + spec + "' in URI template: " +
+                    pattern);
+            }
+
+            return new VarSpec(validName(spec.substring(0, colon), pattern), prefix, false);
+        }
+
+        private static String validName(String name, String pattern) {
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Empty variable name in URI template: " + pattern);
+            }
+
+            for (int i = 0; i < name.length(); ++i) {
+                char c = name.charAt(i);
+
+                if (!(Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '%')) {
+                    throw new IllegalArgumentException("Invalid variable name '" + name + "' in URI template: " +
+                        pattern);
+                }
+            }
+
+            return name;
+        }
+    }
+
+    private static class Expression {
+        private final Operator operator;
+        private final VarSpec[] varSpecs;
+
+        Expression(Operator operator, VarSpec[] varSpecs) {
+            this.operator = operator;
+            this.varSpecs = varSpecs;
+        }
+
+        static Expression parse(String pattern, int start, int end) {
+            if (start == end) {
+                throw new IllegalArgumentException("Empty expression in URI template: " + pattern);
+            }
+
+            Operator operator = Operator.of(pattern.charAt(start));
+
+            if (operator == null) {
+                operator = Operator.SIMPLE;
+            } else {
+                ++start;
+            }
+
+            List<VarSpec> varSpecs = new ArrayList<VarSpec>(2);
+            int i = start;
+
+            while (i <= end) {
+                int comma = pattern.indexOf(',', i);
+
+                if (comma < 0 || comma > end) {
+                    comma = end;
+                }
+
+                varSpecs.add(VarSpec.parse(pattern.substring(i, comma), pattern));
+                i = comma + 1;
+            }
+
+            return new Expression(operator, varSpecs.toArray(new VarSpec[varSpecs.size()]));
+        }
+
+        void expandTo(StringBuilder sb, Variables variables) {
+            boolean isFirst = true;
+
+            for (VarSpec varSpec : varSpecs) {
+                Object value = variables.get(varSpec.name);
+
+                if (isUndefined(value)) {
+                    continue;
+                }
+
+                sb.append(isFirst ? operator.first : operator.separator);
+                isFirst = false;
+
+                if (value instanceof Map) {
+                    expandMap(sb, varSpec, (Map<?, ?>) value);
+                } else if (value instanceof Collection) {
+                    expandList(sb, varSpec, (Collection<?>) value);
+                } else {
+                    expandString(sb, varSpec, value.toString());
+                }
+            }
+        }
+
+        private void expandString(StringBuilder sb, VarSpec varSpec, String value) {
+            if (operator.isNamed) {
+                sb.append(varSpec.name);
+
+                if (value.isEmpty()) {
+                    sb.append(operator.ifEmpty);
+                    return;
+                }
+
+                sb.append('=');
+            }
+
+            if (varSpec.prefix > 0 && value.codePointCount(0, value.length()) > varSpec.prefix) {
+                value = value.substring(0, value.offsetByCodePoints(0, varSpec.prefix));
+            }
+
+            encode(sb, value, operator.allowReserved);
+        }
+
+        private void expandList(StringBuilder sb, VarSpec varSpec, Collection<?> values) {
+            boolean isFirst = true;
+
+            if (!varSpec.isExploded) {
+                if (operator.isNamed) {
+                    sb.append(varSpec.name);
+                    sb.append('=');
+                }
+
+                for (Object value : values) {
+                    if (!isFirst) {
+                        sb.append(',');
+                    }
+
+                    isFirst = false;
+                    encode(sb, String.valueOf(value), operator.allowReserved);
+                }
+
+                return;
+            }
+
+            for (Object value : values) {
+                if (!isFirst) {
+                    sb.append(operator.separator);
+                }
+
+                isFirst = false;
+                String string = String.valueOf(value);
+
+                if (operator.isNamed) {
+                    sb.append(varSpec.name);
+
+                    if (string.isEmpty()) {
+                        sb.append(operator.ifEmpty);
+                        continue;
+                    }
+
+                    sb.append('=');
+                }
+
+                encode(sb, string, operator.allowReserved);
+            }
+        }
+
+        private void expandMap(StringBuilder sb, VarSpec varSpec, Map<?, ?> values) {
+            boolean isFirst = true;
+
+            if (!varSpec.isExploded) {
+                if (operator.isNamed) {
+                    sb.append(varSpec.name);
+                    sb.append('=');
+                }
+
+                for (Entry<?, ?> entry : values.entrySet()) {
+                    if (!isFirst) {
+                        sb.append(',');
+                    }
+
+                    isFirst = false;
+                    encode(sb, String.valueOf(entry.getKey()), operator.allowReserved);
+                    sb.append(',');
+                    encode(sb, String.valueOf(entry.getValue()), operator.allowReserved);
+                }
+
+                return;
+            }
+
+            for (Entry<?, ?> entry : values.entrySet()) {
+                if (!isFirst) {
+                    sb.append(operator.separator);
+                }
+
+                isFirst = false;
+                String value = String.valueOf(entry.getValue());
+                encode(sb, String.valueOf(entry.getKey()), operator.allowReserved);
+
+                if (operator.isNamed && value.isEmpty()) {
+                    sb.append(operator.ifEmpty);
+                    continue;
+                }
+
+                sb.append('=');
+                encode(sb, value, operator.allowReserved);
+            }
+        }
+
+        private static boolean isUndefined(Object value) {
+            if (value == null) {
+                return true;
+            }
+
+            if (value instanceof Collection) {
+                return ((Collection<?>) value).isEmpty();
+            }
+
+            if (value instanceof Map) {
+                return ((Map<?, ?>) value).isEmpty();
+            }
+
+            return false;
+        }
+    }
+}
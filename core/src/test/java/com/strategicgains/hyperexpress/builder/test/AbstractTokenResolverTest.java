@@ -0,0 +1,156 @@
+package com.strategicgains.hyperexpress.builder.test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.strategicgains.hyperexpress.builder.AbstractTokenResolver;
+import com.strategicgains.hyperexpress.builder.DefaultLinkBuilder;
+import com.strategicgains.hyperexpress.builder.DefaultTokenResolver;
+import com.strategicgains.hyperexpress.builder.DefaultUrlBuilder;
+import com.strategicgains.hyperexpress.builder.TokenBinder;
+import com.strategicgains.hyperexpress.builder.TokenResolver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class AbstractTokenResolverTest {
+    @Test
+    public void shouldNotAdaptAbstractTokenResolver() {
+        DefaultTokenResolver resolver = new DefaultTokenResolver();
+
+        assertSame(resolver, AbstractTokenResolver.adapt(resolver));
+    }
+
+    @Test
+    public void shouldExpandThroughForeignResolver() {
+        TokenResolver r = new ForeignTokenResolver().bind("id", "a b").bind("tag", "x", "y");
+
+        assertEquals("/things/a%20b?tag=x,y", AbstractTokenResolver.adapt(r).expand("/things/{id}{?tag}"));
+        assertEquals("/things/a%20b", new DefaultUrlBuilder("/things/{id}{?limit}").expand(r));
+    }
+
+    @Test
+    public void shouldBindTypedBinderThroughForeignResolver() {
+        TokenResolver r = AbstractTokenResolver.adapt(new ForeignTokenResolver()).binder(String.class,
+            new TokenBinder<CharSequence>() {
+                public void bind(CharSequence object, TokenResolver resolver) {
+                    resolver.bind("length", String.valueOf(object.length()));
+                }
+            });
+
+        assertEquals("/3", r.resolve("/{length}", "abc"));
+        assertEquals("/{length}", r.resolve("/{length}", 42));
+    }
+
+    @Test
+    public void shouldScopeObjectThroughForeignResolver() {
+        TokenResolver r = new ForeignTokenResolver().bind("type", "things").binder(new TokenBinder<Integer>() {
+                public void bind(Integer object, TokenResolver resolver) {
+                    resolver.bind("id", String.valueOf(object));
+                }
+            });
+        TokenResolver scope = AbstractTokenResolver.adapt(r).forObject(7).bind("format", "json");
+
+        assertEquals("/things/7.json", scope.resolve("/{type}/{id}.{format}"));
+        assertEquals("/things/{id}.{format}", r.resolve("/{type}/{id}.{format}"));
+        assertEquals("/things/7", new DefaultLinkBuilder("/{type}/{id}").rel("self").build(7, r).getHref());
+    }
+
+    @Test
+    public void shouldLayerScopeOverForeignResolver() {
+        TokenResolver r = new ForeignTokenResolver().bind("a", "1").bind("b", "2");
+        TokenResolver child = AbstractTokenResolver.adapt(r).newScope().bind("b", "20");
+
+        assertEquals("/1/20", child.resolve("/{a}/{b}"));
+        assertEquals("/1/2", r.resolve("/{a}/{b}"));
+    }
+
+    @Test
+    public void shouldLeaveBufferUnchangedWhenUnbound() {
+        TokenResolver foreign = new ForeignTokenResolver().bind("a", "1").bind("b", "2", "3");
+
+        for (AbstractTokenResolver r : Arrays.asList(AbstractTokenResolver.adapt(foreign),
+                new DefaultTokenResolver().bind("a", "1").bind("b", "2", "3"))) {
+            StringBuilder sb = new StringBuilder("x");
+
+            assertFalse(r.resolveTo(sb, "/{a}/{c}"));
+            assertFalse(r.resolveMultiTo(sb, "b={b}&c={c}", "&"));
+            assertEquals("x", sb.toString());
+
+            assertTrue(r.resolveTo(sb, "/{a}"));
+            assertTrue(r.resolveMultiTo(sb, "?b={b}", "&"));
+            assertEquals("x/1?b=2&?b=3", sb.toString());
+        }
+    }
+
+    /**
+     * Implements only the TokenResolver interface, as a third-party resolver would.
+     */
+    private static class ForeignTokenResolver implements TokenResolver {
+        private final DefaultTokenResolver delegate = new DefaultTokenResolver();
+
+        public TokenResolver bind(String tokenName, String value) {
+            delegate.bind(tokenName, value);
+
+            return this;
+        }
+
+        public TokenResolver bind(String tokenName, String... multiValues) {
+            delegate.bind(tokenName, multiValues);
+
+            return this;
+        }
+
+        public TokenResolver bind(String tokenName, List<String> multiValues) {
+            delegate.bind(tokenName, multiValues);
+
+            return this;
+        }
+
+        public void clear() {
+            delegate.clear();
+        }
+
+        public void remove(String tokenName) {
+            delegate.remove(tokenName);
+        }
+
+        public <T> TokenResolver binder(TokenBinder<T> callback) {
+            delegate.binder(callback);
+
+            return this;
+        }
+
+        public void clearBinders() {
+            delegate.clearBinders();
+        }
+
+        public void reset() {
+            delegate.reset();
+        }
+
+        public String resolve(String pattern) {
+            return delegate.resolve(pattern);
+        }
+
+        public String[] resolveMulti(String pattern) {
+            return delegate.resolveMulti(pattern);
+        }
+
+        public String resolve(String pattern, Object object) {
+            return delegate.resolve(pattern, object);
+        }
+
+        public Collection<String> resolve(Collection<String> patterns) {
+            return delegate.resolve(patterns);
+        }
+
+        public Collection<String> resolve(Collection<String> patterns, Object object) {
+            return delegate.resolve(patterns, object);
+        }
+    }
+}
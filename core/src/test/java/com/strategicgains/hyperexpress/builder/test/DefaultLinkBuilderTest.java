@@ -7,10 +7,18 @@ import com.strategicgains.hyperexpress.RelTypes;
 import com.strategicgains.hyperexpress.builder.DefaultLinkBuilder;
 import com.strategicgains.hyperexpress.builder.DefaultTokenResolver;
 import com.strategicgains.hyperexpress.builder.LinkBuilder;
+import com.strategicgains.hyperexpress.builder.LinkPlan;
+import com.strategicgains.hyperexpress.builder.RelationshipDefinition;
 import com.strategicgains.hyperexpress.builder.TokenResolver;
 import com.strategicgains.hyperexpress.domain.Link;
+import com.strategicgains.hyperexpress.domain.LinkDefinition;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 public class DefaultLinkBuilderTest {
@@ -86,4 +94,67 @@ public class DefaultLinkBuilderTest {
     public void shouldAllowMissingRel() {
         new DefaultLinkBuilder(URL_PATTERN).build(new DefaultTokenResolver());
     }
+
+    @Test
+    public void shouldShareConstantLinksOnlyInPlans() {
+        RelationshipDefinition rels = new RelationshipDefinition();
+        rels.forClass(String.class).rel("help", "/docs").withQuery("format=html");
+        LinkPlan plan = rels.compile().getLinkPlan(String.class);
+        DefaultLinkBuilder lb = (DefaultLinkBuilder) plan.getBuilder(0);
+        TokenResolver r = new DefaultTokenResolver().bind("id", "1");
+
+        assertTrue(lb.isConstant());
+        Link link = plan.buildLink(0, "x", r);
+        assertSame(link, plan.buildLink(0, "y", r));
+        assertEquals(new LinkDefinition("help", "/docs?format=html"), link);
+
+        Link built = lb.build(r);
+        assertNotSame(link, built);
+        assertNotSame(built, lb.build("x", r));
+        assertEquals(link, built);
+    }
+
+    @Test
+    public void shouldModifyBuiltConstantLinks() {
+        DefaultLinkBuilder lb = new DefaultLinkBuilder("/docs").rel("help");
+        Link link = lb.build();
+        link.setHref("/other");
+        link.set("title", "Other");
+
+        assertEquals("/other", link.getHref());
+        assertEquals("/docs", lb.build().getHref());
+        assertNull(lb.build().get("title"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotModifyPlannedConstantLinks() {
+        RelationshipDefinition rels = new RelationshipDefinition();
+        rels.forClass(String.class).rel("help", "/docs");
+        rels.compile().getLinkPlan(String.class).buildLink(0, "x", null).setHref("/other");
+    }
+
+    @Test
+    public void shouldNotShareTokenizedLinks() {
+        DefaultLinkBuilder lb = new DefaultLinkBuilder("/docs").withQuery("id={id}");
+        assertFalse(lb.isConstant());
+        assertNotSame(lb.build(), lb.build());
+    }
+
+    @Test
+    public void shouldRecordWhetherTokensWereBound() {
+        DefaultLinkBuilder lb = new DefaultLinkBuilder("/orders/{id}").rel("self");
+        Link bound = lb.build(new DefaultTokenResolver().bind("id", "42"));
+        Link unbound = lb.build(new DefaultTokenResolver());
+
+        assertEquals("/orders/42", bound.getHref());
+        assertFalse(bound.hasToken());
+        assertTrue(unbound.hasToken());
+        assertTrue(bound.setHref("/orders/{id}").hasToken());
+    }
+
+    @Test
+    public void shouldKeepRecordedTokenUntilHrefChanges() {
+        assertFalse(new LinkDefinition("self", "/orders/{id}", null, false).hasToken());
+        assertTrue(new LinkDefinition("self", "/orders/{id}", null, false).clone().setHref("/{x}").hasToken());
+    }
 }
@@ -4,11 +4,16 @@ import java.util.Arrays;
 import java.util.Collection;
 
 import com.strategicgains.hyperexpress.builder.DefaultTokenResolver;
+import com.strategicgains.hyperexpress.builder.RelationshipDefinition;
 import com.strategicgains.hyperexpress.builder.TokenBinder;
 import com.strategicgains.hyperexpress.builder.TokenResolver;
+import com.strategicgains.hyperexpress.domain.Resource;
+import com.strategicgains.hyperexpress.test.AgnosticResource;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import org.junit.Test;
 
 public class DefaultTokenResolverTest {
@@ -58,6 +63,88 @@ public class DefaultTokenResolverTest {
         verifyUrls(urls, "/a/a/b/b", "/c/c/d/d/e/13", "{f}");
     }
 
+    @Test
+    public void shouldOnlyCallApplicableBinders() {
+        Resolvable r = new Resolvable();
+        r.e = 7;
+        TokenResolver resolver = new DefaultTokenResolver().binder(new OtherBinder()).binder(new ResolvableBinder());
+
+        assertEquals("/e/7/other/{other}", resolver.resolve("/e/{e}/other/{other}", r));
+        assertEquals("/e/{e}/other/other", resolver.resolve("/e/{e}/other/{other}", new Other()));
+    }
+
+    @Test
+    public void shouldRegisterBinderWithExplicitType() {
+        Resolvable r = new Resolvable();
+        r.e = 11;
+        TokenResolver resolver = new DefaultTokenResolver().binder(Resolvable.class, new GenericBinder<Resolvable>());
+
+        assertEquals("/e/{e}", resolver.resolve("/e/{e}", new Other()));
+        assertEquals("/e/11", resolver.resolve("/e/{e}", r));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUntypedBinder() {
+        new DefaultTokenResolver().binder(new GenericBinder<Resolvable>());
+    }
+
+    @Test
+    public void shouldFallThroughScopes() {
+        DefaultTokenResolver parent = new DefaultTokenResolver().bind("a", "1").bind("b", "2").bind("c", "3", "4");
+        TokenResolver child = parent.newScope().bind("b", "20");
+        child.remove("a");
+
+        assertEquals("/{a}/20/3", child.resolve("/{a}/{b}/{c}"));
+        assertEquals("/1/2/3", parent.resolve("/{a}/{b}/{c}"));
+        assertArrayEquals(new String[] { "/20/3", "/20/4" }, child.resolveMulti("/{b}/{c}"));
+
+        child.bind("c", "30");
+        assertArrayEquals(new String[] { "/20/30" }, child.resolveMulti("/{b}/{c}"));
+        assertArrayEquals(new String[] { "/2/3", "/2/4" }, parent.resolveMulti("/{b}/{c}"));
+
+        child.clear();
+        assertEquals("/1/2/3", child.resolve("/{a}/{b}/{c}"));
+    }
+
+    @Test
+    public void shouldBindObjectOnceIntoScope() {
+        CountingBinder binder = new CountingBinder();
+        DefaultTokenResolver parent = new DefaultTokenResolver().bind("a", "a").binder(binder);
+        Resolvable r = new Resolvable();
+        r.e = 3;
+
+        DefaultTokenResolver scope = parent.forObject(r);
+        assertSame(scope, scope.forObject(r));
+        assertEquals("/a/e/3", scope.resolve("/{a}/e/{e}", r));
+        assertEquals("/a/e/3", scope.resolve("/{a}/e/{e}", r));
+        assertEquals("/a/e/3", scope.expand("/{a}/e/{e}", r));
+        assertEquals(1, binder.count);
+        assertEquals("/a/e/{e}", parent.resolve("/{a}/e/{e}"));
+    }
+
+    @Test
+    public void shouldBindObjectOncePerLinkPlan() {
+        CountingBinder binder = new CountingBinder();
+        TokenResolver resolver = new DefaultTokenResolver().binder(binder);
+        Resolvable r = new Resolvable();
+        r.e = 5;
+
+        RelationshipDefinition rdef =
+            new RelationshipDefinition().forClass(Resolvable.class)
+            .rel("self", "/e/{e}")
+            .rel("edit", "/e/{e}/edit")
+            .ifBound("e")
+            .rel("up", "/e")
+            .ifBound("e")
+            .ifNotBound("a");
+        Resource resource = rdef.compile().getLinkPlan(Resolvable.class)
+            .addLinks(new AgnosticResource(), r, resolver);
+
+        assertEquals(3, resource.getLinks().size());
+        assertEquals("/e/5/edit", resource.getLinks().get(1).getHref());
+        assertEquals(1, binder.count);
+    }
+
     private void verifyUrls(Collection<String> actual, String... expected) {
         assertEquals(expected.length, actual.size());
 
@@ -71,4 +158,40 @@ public class DefaultTokenResolverTest {
     private class Resolvable {
         public int e;
     }
+
+    private class Other {
+    }
+
+    private abstract class AbstractBinder<T> implements TokenBinder<T> {
+    }
+
+    private class ResolvableBinder extends AbstractBinder<Resolvable> {
+        public void bind(Resolvable object, TokenResolver r) {
+            r.bind("e", String.valueOf(object.e));
+        }
+    }
+
+    private class OtherBinder implements TokenBinder<Other> {
+        public void bind(Other object, TokenResolver r) {
+            r.bind("other", "other");
+        }
+    }
+
+    /**
+     * Its bound type is a type variable, so it cannot be determined from the class.
+     */
+    private class GenericBinder<T extends Resolvable> implements TokenBinder<T> {
+        public void bind(T object, TokenResolver r) {
+            r.bind("e", String.valueOf(object.e));
+        }
+    }
+
+    private class CountingBinder implements TokenBinder<Resolvable> {
+        private int count;
+
+        public void bind(Resolvable object, TokenResolver r) {
+            ++count;
+            r.bind("e", String.valueOf(object.e));
+        }
+    }
 }
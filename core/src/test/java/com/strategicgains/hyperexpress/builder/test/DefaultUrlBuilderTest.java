@@ -2,9 +2,12 @@ package com.strategicgains.hyperexpress.builder.test;
 
 import com.strategicgains.hyperexpress.builder.DefaultTokenResolver;
 import com.strategicgains.hyperexpress.builder.DefaultUrlBuilder;
+import com.strategicgains.hyperexpress.builder.TokenBinder;
 import com.strategicgains.hyperexpress.builder.TokenResolver;
 import com.strategicgains.hyperexpress.builder.UrlBuilder;
 
+import java.io.StringWriter;
+
 import org.junit.Assert;
 import static org.junit.Assert.assertEquals;
 import org.junit.Test;
@@ -108,4 +111,69 @@ public class DefaultUrlBuilderTest {
                 .bind("selfLimit", "20")
                 .bind("selfOffset", "40")));
     }
+
+    @Test
+    public void shouldExpandUriTemplate() {
+        TokenResolver r =
+            new DefaultTokenResolver().bind("rootId", "some thing")
+            .bind("accountId", "400", "401", "402")
+            .bind("limit", "20");
+
+        assertEquals("http://localhost/some%20thing/reports?accountId=400&accountId=401&accountId=402&limit=20",
+            new DefaultUrlBuilder("/{rootId}/reports{?accountId*}").baseUrl("http://localhost")
+                .withQuery("{&limit,offset}")
+                .expand(r));
+    }
+
+    @Test
+    public void shouldExpandQueryBoundFromObject() {
+        TokenResolver r = new DefaultTokenResolver().bind("blogId", "42").binder(Integer.class,
+            new TokenBinder<Integer>() {
+                public void bind(Integer object, TokenResolver resolver) {
+                    resolver.bind("page", String.valueOf(object));
+                }
+            });
+        DefaultUrlBuilder ub = new DefaultUrlBuilder("/blogs/{blogId}").withQuery("{?page}");
+
+        assertEquals("/blogs/42?page=3", ub.expand(3, r));
+        assertEquals("/blogs/42?page=3", ub.build(3, r));
+        assertEquals("/blogs/42", ub.build(r));
+    }
+
+    @Test
+    public void shouldBuildUriTemplateOperators() {
+        TokenResolver r = new DefaultTokenResolver().bind("path", "a", "b c").bind("limit", "20");
+
+        assertEquals("/files/a/b%20c?limit=20", new DefaultUrlBuilder("/files{/path*}{?page,limit}").build(r));
+        assertEquals("/files/a/b%20c?sort=name&limit=20", new DefaultUrlBuilder("/files{/path*}")
+            .withQuery("sort=name").withQuery("{&page,limit}").build(r));
+        assertEquals("/files{/path*}", new DefaultUrlBuilder("/files{/path*}").build());
+        assertEquals("/files/{id}", new DefaultUrlBuilder("/files/{id}").build(r));
+    }
+
+    @Test
+    public void shouldExpandUriTemplateWithoutResolver() {
+        assertEquals("/reports?fixed=yes", new DefaultUrlBuilder("/reports{?limit}").withQuery("fixed=yes")
+            .expand(null));
+    }
+
+    @Test
+    public void shouldBuildIntoBuffer() throws Exception {
+        TokenResolver r = new DefaultTokenResolver().bind("rootId", "something")
+            .bind("secondaryId", "else")
+            .bind("id", "12345")
+            .bind("accountId", "400", "401")
+            .bind("limit", "20");
+        DefaultUrlBuilder ub = new DefaultUrlBuilder(URL_PATTERN2).baseUrl("http://localhost")
+            .withQuery("accountId={accountId}")
+            .withQuery("offset={offset}")
+            .withQuery("limit={limit}");
+        StringBuilder sb = new StringBuilder("href=");
+        ub.buildInto(sb, null, r);
+        assertEquals("href=http://localhost/something/else/12345?accountId=400&accountId=401&limit=20", sb.toString());
+
+        StringWriter out = new StringWriter();
+        ub.buildInto(out, null, r);
+        assertEquals(ub.build(r), out.toString());
+    }
 }
@@ -4,15 +4,24 @@ import java.util.Collection;
 
 import static com.strategicgains.hyperexpress.RelTypes.SELF;
 import static com.strategicgains.hyperexpress.RelTypes.UP;
+import com.strategicgains.hyperexpress.builder.CompiledRelationships;
+import com.strategicgains.hyperexpress.builder.ConditionalLinkBuilder;
 import com.strategicgains.hyperexpress.builder.LinkBuilder;
+import com.strategicgains.hyperexpress.builder.LinkPlan;
 import com.strategicgains.hyperexpress.builder.RelationshipDefinition;
 import com.strategicgains.hyperexpress.domain.Namespace;
+import com.strategicgains.hyperexpress.domain.Resource;
 import com.strategicgains.hyperexpress.domain.test.Blog;
 import com.strategicgains.hyperexpress.domain.test.Comment;
 import com.strategicgains.hyperexpress.domain.test.Entry;
+import com.strategicgains.hyperexpress.test.AgnosticResource;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 public class RelationshipDefinitionTest {
@@ -111,6 +120,86 @@ public class RelationshipDefinitionTest {
         assertEquals(3, links.size());
     }
 
+    @Test
+    public void shouldCompileSnapshot() {
+        RelationshipDefinition rdef =
+            new RelationshipDefinition().addNamespace(new Namespace("ea", "http://namespaces.example.com/{rel}"))
+            .forCollectionOf(Blog.class)
+            .rels(SELF, "/blogs")
+            .asRel("blogerrific")
+            .forClass(Blog.class)
+            .rel(SELF, "/blogs/{blogId}")
+            .rels("blog:entries", "/blogs/{blogId}/entries");
+
+        CompiledRelationships compiled = rdef.compile();
+        assertSame(compiled, rdef.compile());
+        assertEquals(1, compiled.getNamespaces().size());
+        assertEquals(1, compiled.getNamespaceList().size());
+        assertEquals(2, compiled.getLinkBuilders(Blog.class).size());
+        assertEquals(1, compiled.getCollectionLinkBuilders(Blog.class).size());
+        assertEquals(1, compiled.getLinkBuilders(Blog[].class).size());
+        assertEquals(0, compiled.getLinkBuilders(Comment.class).size());
+        assertTrue(compiled.isArrayRel(Blog.class, "blog:entries"));
+        assertFalse(compiled.isArrayRel(Blog.class, SELF));
+        assertTrue(compiled.isCollectionArrayRel(Blog.class, SELF));
+        assertEquals("blogerrific", compiled.getCollectionRelFor(Blog.class));
+        assertEquals("comments", compiled.getCollectionRelFor(Comment.class));
+
+        rdef.forClass(Comment.class).rel(SELF, "/comments/{commentId}");
+        CompiledRelationships recompiled = rdef.compile();
+        assertNotSame(compiled, recompiled);
+        assertEquals(0, compiled.getLinkBuilders(Comment.class).size());
+        assertEquals(1, recompiled.getLinkBuilders(Comment.class).size());
+    }
+
+    @Test
+    public void shouldPlanLinks() {
+        CompiledRelationships compiled =
+            new RelationshipDefinition().addNamespace(new Namespace("ea", "http://namespaces.example.com/{rel}"))
+            .forClass(Blog.class)
+            .rel(SELF, "/blogs/{blogId}")
+            .rels("blog:entries", "/blogs/{blogId}/entries")
+            .compile();
+
+        LinkPlan plan = compiled.getLinkPlan(Blog.class);
+        assertSame(plan, compiled.getLinkPlan(Blog.class));
+        assertEquals(2, plan.size());
+        assertEquals(SELF, plan.getBuilder(0).rel());
+        assertFalse(plan.isArrayRel(0));
+        assertEquals("blog:entries", plan.getBuilder(1).rel());
+        assertTrue(plan.isArrayRel(1));
+        assertSame(compiled.getNamespaceList(), plan.getNamespaces());
+
+        Resource unresolved = plan.addLinks(new AgnosticResource(), new Blog(), null);
+        assertEquals("/blogs/{blogId}", unresolved.getLinks().get(0).getHref());
+
+        LinkPlan empty = compiled.getCollectionLinkPlan(Blog.class);
+        assertTrue(empty.isEmpty());
+        assertSame(empty, compiled.getLinkPlan(null));
+        assertSame(compiled.getNamespaceList(), empty.getNamespaces());
+    }
+
+    @Test
+    public void shouldCopyBuildersIntoSnapshot() {
+        RelationshipDefinition rdef = new RelationshipDefinition().forClass(Blog.class).rel(SELF, "/blogs/{blogId}")
+            .optional();
+        CompiledRelationships compiled = rdef.compile();
+        LinkBuilder original = rdef.getLinkBuilders(Blog.class).get(0);
+        LinkBuilder copy = compiled.getLinkBuilders(Blog.class).get(0);
+
+        assertNotSame(original, copy);
+        assertTrue(((ConditionalLinkBuilder) copy).isOptional());
+
+        original.urlPattern("/changed");
+        assertEquals("/blogs/{blogId}", copy.urlPattern());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotModifySnapshot() {
+        new RelationshipDefinition().forClass(Blog.class).rel(SELF, "/blogs/{blogId}").compile()
+            .getLinkBuilders(Blog.class).clear();
+    }
+
     private void verifyNamespacesExist(Collection<Namespace> namespaces) throws Exception {
         assertNotNull(namespaces);
         assertEquals(2, namespaces.size());
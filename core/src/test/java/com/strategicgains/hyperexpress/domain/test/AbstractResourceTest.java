@@ -0,0 +1,70 @@
+package com.strategicgains.hyperexpress.domain.test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import com.strategicgains.hyperexpress.domain.AbstractResource;
+import com.strategicgains.hyperexpress.domain.Resource;
+import com.strategicgains.hyperexpress.test.AgnosticResource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class AbstractResourceTest {
+    @Test
+    public void shouldReturnEmptyCollectionsWithoutAllocating() throws Exception {
+        AbstractResource r = new AgnosticResource();
+
+        assertTrue(r.getNamespaces().isEmpty());
+        assertTrue(r.getLinks().isEmpty());
+        assertTrue(r.getLinksByRel().isEmpty());
+        assertTrue(r.getProperties().isEmpty());
+        assertTrue(r.getResources().isEmpty());
+        assertTrue(r.getResources("items").isEmpty());
+        assertNull(r.getProperty("id"));
+        assertFalse(r.hasNamespaces() || r.hasLinks() || r.hasProperties() || r.hasResources());
+        assertFalse(r.hasProperty("id") || r.hasResources("items"));
+        assertFalse(r.isMultipleLinks("self") || r.isMultipleResources("items"));
+        assertNull(r.removeProperty("id"));
+        r.setProperty("id", null);
+
+        for (Field f : AbstractResource.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(f.getModifiers())) {
+                f.setAccessible(true);
+                assertNull(f.getName(), f.get(r));
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotShareStateBetweenUntouchedResources() {
+        AbstractResource untouched = new AgnosticResource();
+        Resource other = new AgnosticResource();
+        other.addNamespace("ns", "/namespaces/ns")
+            .addLink("self", "/items/1", true)
+            .addProperty("id", 1)
+            .addResource("items", new AgnosticResource(), true);
+
+        assertTrue(untouched.getNamespaces().isEmpty());
+        assertTrue(untouched.getLinks().isEmpty());
+        assertTrue(untouched.getLinksByRel().isEmpty());
+        assertTrue(untouched.getProperties().isEmpty());
+        assertTrue(untouched.getResources().isEmpty());
+        assertFalse(untouched.isMultipleLinks("self") || untouched.isMultipleResources("items"));
+        assertEquals(1, other.getLinks().size());
+        assertEquals(1, other.getResources("items").size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotModifyEmptyProperties() {
+        new AgnosticResource().getProperties().put("id", 1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotModifyEmptyLinks() {
+        new AgnosticResource().getLinks().add(null);
+    }
+}
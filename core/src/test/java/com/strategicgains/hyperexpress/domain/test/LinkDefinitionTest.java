@@ -1,10 +1,14 @@
 package com.strategicgains.hyperexpress.domain.test;
 
+import com.strategicgains.hyperexpress.util.MapStringFormat;
+
 import com.strategicgains.hyperexpress.domain.Link;
+import com.strategicgains.hyperexpress.domain.LinkAttributes;
 import com.strategicgains.hyperexpress.domain.LinkDefinition;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -17,6 +21,15 @@ public class LinkDefinitionTest {
         assertTrue(link.hasToken());
     }
 
+    @Test
+    public void shouldRecheckTemplateWhenHrefChanges() {
+        Link link = new LinkDefinition("self", "/something/{id}");
+        assertTrue(link.hasToken());
+        assertTrue(link.clone().hasToken());
+        assertFalse(link.setHref("/something/42").hasToken());
+        assertFalse(new LinkDefinition("self", null).hasToken());
+    }
+
     @Test
     public void shouldSetArbitraryProperty() {
         Link link = new LinkDefinition("rel", "href");
@@ -26,4 +39,28 @@ public class LinkDefinitionTest {
         assertEquals("value", link.get("arbitrary"));
         assertFalse(link.hasToken());
     }
+
+    @Test
+    public void shouldShareAttributesUntilOverridden() {
+        LinkAttributes attributes = LinkAttributes.of(MapStringFormat.toMap("title", "Entry", "method", "PUT"));
+        Link first = new LinkDefinition("edit", "/entries/1", attributes);
+        Link second = new LinkDefinition("edit", "/entries/2", attributes);
+
+        second.set("title", "Other").set("method", null);
+        assertEquals("Entry", first.get("title"));
+        assertEquals("PUT", first.get("method"));
+        assertEquals("Other", second.get("title"));
+        assertNull(second.get("method"));
+        assertFalse(second.has("method"));
+    }
+
+    @Test
+    public void shouldEqualLinkWithSameAttributes() {
+        Link shared = new LinkDefinition("edit", "/entries/1", LinkAttributes.of(MapStringFormat.toMap("title",
+                        "Entry")));
+        Link separate = new LinkDefinition("edit", "/entries/1").set("title", "Entry");
+        assertEquals(separate, shared);
+        assertEquals(separate.hashCode(), shared.hashCode());
+        assertFalse(separate.equals(shared.clone().set("title", null)));
+    }
 }
@@ -0,0 +1,510 @@
+package com.strategicgains.hyperexpress.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import com.strategicgains.hyperexpress.domain.Resource;
+import com.strategicgains.hyperexpress.exception.ExpansionException;
+import com.strategicgains.hyperexpress.expand.AsyncExpansionCallback;
+import com.strategicgains.hyperexpress.expand.BatchExpansionCallback;
+import com.strategicgains.hyperexpress.expand.Expander;
+import com.strategicgains.hyperexpress.expand.Expansion;
+import com.strategicgains.hyperexpress.expand.ExpansionCallback;
+import com.strategicgains.hyperexpress.expand.ExpansionCache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class ExpanderTest {
+    @Test
+    public void shouldExpandListInOneBatch() {
+        final List<Set<Object>> lookups = new ArrayList<Set<Object>>();
+        Expander.registerBatchCallback(Post.class, new BatchExpansionCallback() {
+                public List<Resource> expand(Expansion expansion, List<Resource> resources) {
+                    if (!expansion.contains("author")) {
+                        return resources;
+                    }
+
+                    Set<Object> ids = new LinkedHashSet<Object>();
+
+                    for (Resource resource : resources) {
+                        ids.add(resource.getProperty("authorId"));
+                    }
+
+                    lookups.add(ids);
+                    Map<Object, Resource> authors = new HashMap<Object, Resource>();
+
+                    for (Object id : ids) {
+                        authors.put(id, new AgnosticResource().addProperty("name", "author " + id));
+                    }
+
+                    for (Resource resource : resources) {
+                        resource.addResource("author", authors.get(resource.getProperty("authorId")));
+                    }
+
+                    return resources;
+                }
+            });
+
+        List<Resource> posts = Arrays.asList(post(1), post(2), post(1));
+        Expander.expand(new Expansion("*", Arrays.asList("author")), Post.class, posts);
+
+        assertEquals(1, lookups.size());
+        assertEquals(2, lookups.get(0).size());
+        assertEquals("author 2", posts.get(1).getResources("author").get(0).getProperty("name"));
+        assertEquals("author 1", posts.get(2).getResources("author").get(0).getProperty("name"));
+
+        Resource single = Expander.expand(new Expansion("*", Arrays.asList("author")), Post.class, post(3));
+        assertEquals(2, lookups.size());
+        assertEquals("author 3", single.getResources("author").get(0).getProperty("name"));
+    }
+
+    @Test
+    public void shouldExpandRelsConcurrently() {
+        final CountDownLatch started = new CountDownLatch(3);
+        Expander.registerAsyncCallback(Blog.class, new AsyncExpansionCallback() {
+                public Future<List<Resource>> expand(String rel, Expansion expansion, List<Resource> resources) {
+                    started.countDown();
+
+                    try {
+                        // Completes only if all three rels are being expanded at the same time.
+                        assertTrue(started.await(5, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+
+                    List<Resource> fragments = new ArrayList<Resource>();
+
+                    for (Resource resource : resources) {
+                        fragments.add(new AgnosticResource().addResource(rel, new AgnosticResource().addProperty(
+                                    "of", resource.getProperty("id"))));
+                    }
+
+                    return completed(fragments);
+                }
+            });
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        Expander.executor(executor);
+
+        try {
+            List<Resource> blogs = Arrays.asList(new AgnosticResource().addProperty("id", 1),
+                    new AgnosticResource().addProperty("id", 2));
+            Expander.expandAsync(new Expansion("*", Arrays.asList("author", "comments", "entries")), Blog.class,
+                blogs, 5, TimeUnit.SECONDS);
+
+            assertEquals(1, blogs.get(0).getResources("comments").get(0).getProperty("of"));
+            assertEquals(2, blogs.get(1).getResources("author").get(0).getProperty("of"));
+            assertEquals(3, blogs.get(1).getResources().size());
+        } finally {
+            Expander.executor(null);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldFailAtDeadline() {
+        final List<Future<List<Resource>>> futures = new CopyOnWriteArrayList<Future<List<Resource>>>();
+        Expander.registerAsyncCallback(Entry.class, new AsyncExpansionCallback() {
+                public Future<List<Resource>> expand(String rel, Expansion expansion, List<Resource> resources) {
+                    Future<List<Resource>> future = new FutureTask<List<Resource>>(new Callable<List<Resource>>() {
+                                public List<Resource> call() {
+                                    return null;
+                                }
+                            });
+                    futures.add(future);
+
+                    return future;
+                }
+            });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Expander.executor(executor);
+        Resource entry = new AgnosticResource();
+        long start = System.nanoTime();
+
+        try {
+            Expander.expandAsync(new Expansion("*", Arrays.asList("blog", "author")), Entry.class, entry, 200,
+                TimeUnit.MILLISECONDS);
+            fail("Expected ExpansionException");
+        } catch (ExpansionException e) {
+            assertFalse(entry.hasResources());
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+            // Both callbacks ran on the one executor thread, so neither held it while its future was pending.
+            assertEquals(2, futures.size());
+            assertTrue(futures.get(0).isCancelled());
+            assertTrue(futures.get(1).isCancelled());
+        } finally {
+            Expander.executor(null);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldParseNestedPaths() {
+        Expansion expansion = Expansion.parse("*", " author.company, comments.author,,a..b ");
+
+        assertTrue(expansion.contains("author"));
+        assertTrue(expansion.contains("comments"));
+        assertTrue(expansion.contains("a"));
+        assertFalse(expansion.contains("company"));
+        assertTrue(expansion.getNested("author").contains("company"));
+        assertTrue(expansion.getNested("comments").contains("author"));
+        assertTrue(expansion.getNested("a").contains("b"));
+        assertEquals(expansion, new Expansion("*").addExpansionPath("author.company")
+            .addExpansionPath("comments.author").addExpansionPath("a.b"));
+    }
+
+    @Test
+    public void shouldExpandNestedPathsOncePerLevel() {
+        final List<String> calls = new ArrayList<String>();
+        final Resource sharedAuthor = new AgnosticResource().addProperty("name", "shared");
+        Expander.registerBatchCallback(Article.class, new BatchExpansionCallback() {
+                public List<Resource> expand(Expansion expansion, List<Resource> resources) {
+                    calls.add("article:" + resources.size());
+
+                    for (Resource resource : resources) {
+                        resource.addResource("author", sharedAuthor);
+                        resource.addResource("comments", new AgnosticResource(), true);
+                    }
+
+                    return resources;
+                }
+            });
+        Expander.registerBatchCallback(Comment.class, new BatchExpansionCallback() {
+                public List<Resource> expand(Expansion expansion, List<Resource> resources) {
+                    calls.add("comment:" + resources.size());
+
+                    for (Resource resource : resources) {
+                        resource.addResource("author", sharedAuthor);
+                    }
+
+                    return resources;
+                }
+            });
+        Expander.registerBatchCallback(Author.class, new BatchExpansionCallback() {
+                public List<Resource> expand(Expansion expansion, List<Resource> resources) {
+                    calls.add("author:" + resources.size());
+
+                    for (Resource resource : resources) {
+                        resource.addResource("company", new AgnosticResource());
+                    }
+
+                    return resources;
+                }
+            });
+        Expander.registerEmbeddedType(Article.class, "author", Author.class);
+        Expander.registerEmbeddedType(Article.class, "comments", Comment.class);
+        Expander.registerEmbeddedType(Comment.class, "author", Author.class);
+
+        List<Resource> articles = Arrays.<Resource>asList(new AgnosticResource(), new AgnosticResource());
+        Expander.expand(Expansion.parse("*", "author.company,comments.author"), Article.class, articles);
+
+        // One call per type per level; the shared author is expanded once and comment authors get no company.
+        assertEquals(3, calls.size());
+        assertEquals("article:2", calls.get(0));
+        assertEquals(new HashSet<String>(Arrays.asList("author:1", "comment:2")),
+            new HashSet<String>(calls.subList(1, 3)));
+        assertEquals(1, sharedAuthor.getResources("company").size());
+        assertEquals(sharedAuthor, articles.get(1).getResources("comments").get(0).getResources("author").get(0));
+    }
+
+    @Test
+    public void shouldResolveEmbeddedTypesBySupertype() {
+        Expander.registerCallback(Shelf.class, new ExpansionCallback() {
+                public Resource expand(Expansion expansion, Resource resource) {
+                    return resource.addResource("book", new AgnosticResource());
+                }
+            });
+        Expander.registerCallback(Book.class, new ExpansionCallback() {
+                public Resource expand(Expansion expansion, Resource resource) {
+                    return resource.addResource("publisher", new AgnosticResource());
+                }
+            });
+        Expander.registerEmbeddedType(Shelf.class, "book", Book.class);
+
+        Resource shelf = Expander.expand(Expansion.parse("*", "book.publisher"), SpecialShelf.class,
+            new AgnosticResource());
+
+        assertEquals(1, shelf.getResources("book").get(0).getResources("publisher").size());
+    }
+
+    @Test
+    public void shouldServeExpansionsFromCache()
+    throws InterruptedException {
+        final List<Integer> batchSizes = new ArrayList<Integer>();
+        Expander.registerBatchCallback(Category.class, new BatchExpansionCallback() {
+                public List<Resource> expand(Expansion expansion, List<Resource> resources) {
+                    batchSizes.add(resources.size());
+
+                    for (Resource resource : resources) {
+                        resource.addResource("parent", new AgnosticResource().addProperty("of",
+                                resource.getLinks().get(0).getHref()));
+                    }
+
+                    return resources;
+                }
+            });
+        ExpansionCache cache = new ExpansionCache(1, TimeUnit.HOURS, 2);
+        Expander.cache(cache);
+
+        try {
+            Expansion expansion = new Expansion("*", Arrays.asList("parent"));
+            Resource first = Expander.expand(expansion, Category.class, category("/categories/1"));
+            Resource again = Expander.expand(expansion, Category.class, category("/categories/1"));
+
+            assertEquals(Arrays.asList(1), batchSizes);
+            assertEquals(1, cache.getHitCount());
+            assertEquals(1, cache.getMissCount());
+            assertEquals("/categories/1", again.getResources("parent").get(0).getProperty("of"));
+            assertNotSame(first.getResources("parent").get(0), again.getResources("parent").get(0));
+            assertFalse(again.isMultipleResources("parent"));
+
+            again.getResources("parent").get(0).setProperty("of", "changed");
+            Resource third = Expander.expand(expansion, Category.class, category("/categories/1"));
+            assertEquals("/categories/1", third.getResources("parent").get(0).getProperty("of"));
+            assertEquals(Arrays.asList(1), batchSizes);
+
+            Expander.expand(expansion, Category.class, Arrays.asList(category("/categories/1"),
+                    category("/categories/2"), category("/categories/3")));
+            assertEquals(Arrays.asList(1, 2), batchSizes);
+            assertEquals(2, cache.size());
+            assertEquals(1, cache.getEvictionCount());
+
+            cache = new ExpansionCache(1, TimeUnit.MILLISECONDS, 10);
+            Expander.cache(cache);
+            Expander.expand(expansion, Category.class, category("/categories/1"));
+            Thread.sleep(20);
+            Expander.expand(expansion, Category.class, category("/categories/1"));
+            assertEquals(Arrays.asList(1, 2, 1, 1), batchSizes);
+            assertEquals(1, cache.getEvictionCount());
+        } finally {
+            Expander.cache(null);
+        }
+    }
+
+    @Test
+    public void shouldUseCallbackResultWithCache() {
+        final List<String> calls = new ArrayList<String>();
+        Expander.registerCallback(Tag.class, new ExpansionCallback() {
+                public Resource expand(Expansion expansion, Resource resource) {
+                    calls.add("single");
+
+                    return new AgnosticResource().from(resource).addResource("owner",
+                        new AgnosticResource().addProperty("by", "single"));
+                }
+            });
+        Expander.registerBatchCallback(Tag.class, new BatchExpansionCallback() {
+                public List<Resource> expand(Expansion expansion, List<Resource> resources) {
+                    calls.add("batch");
+
+                    for (Resource resource : resources) {
+                        resource.addResource("owner", new AgnosticResource().addProperty("by", "batch"));
+                    }
+
+                    return resources;
+                }
+            });
+        Expander.cache(new ExpansionCache(1, TimeUnit.HOURS, 10));
+
+        try {
+            Expansion expansion = new Expansion("*", Arrays.asList("owner"));
+            Resource tag = category("/tags/1");
+            Resource first = Expander.expand(expansion, Tag.class, tag);
+            Resource again = Expander.expand(expansion, Tag.class, category("/tags/1"));
+
+            assertNotSame(tag, first);
+            assertEquals("single", first.getResources("owner").get(0).getProperty("by"));
+            assertEquals("single", again.getResources("owner").get(0).getProperty("by"));
+            assertEquals(Arrays.asList("single"), calls);
+        } finally {
+            Expander.cache(null);
+        }
+    }
+
+    @Test
+    public void shouldAddCachedRelsToReplacedResource() {
+        final List<String> expanded = new ArrayList<String>();
+        Expander.registerCallback(Badge.class, new ExpansionCallback() {
+                public Resource expand(Expansion expansion, Resource resource) {
+                    Resource replaced = new AgnosticResource().from(resource);
+
+                    for (String rel : expansion) {
+                        expanded.add(rel);
+                        replaced.addResource(rel, new AgnosticResource().addProperty("rel", rel));
+                    }
+
+                    return replaced;
+                }
+            });
+        Expander.cache(new ExpansionCache(1, TimeUnit.HOURS, 10));
+
+        try {
+            Expander.expand(new Expansion("*", Arrays.asList("owner")), Badge.class, category("/badges/1"));
+            Resource again = Expander.expand(new Expansion("*", Arrays.asList("owner", "issuer")), Badge.class,
+                category("/badges/1"));
+
+            assertEquals(Arrays.asList("owner", "issuer"), expanded);
+            assertEquals("owner", again.getResources("owner").get(0).getProperty("rel"));
+            assertEquals("issuer", again.getResources("issuer").get(0).getProperty("rel"));
+
+            Resource list = Expander.expand(new Expansion("*", Arrays.asList("owner", "issuer")), Badge.class,
+                Arrays.asList(category("/badges/1"), category("/badges/2"))).get(0);
+            assertEquals("owner", list.getResources("owner").get(0).getProperty("rel"));
+            assertEquals(1, list.getResources("issuer").size());
+        } finally {
+            Expander.cache(null);
+        }
+    }
+
+    @Test
+    public void shouldNotCacheRelsEmbeddedBeforeExpanding() {
+        final List<Integer> batchSizes = new ArrayList<Integer>();
+        Expander.registerBatchCallback(Label.class, new BatchExpansionCallback() {
+                public List<Resource> expand(Expansion expansion, List<Resource> resources) {
+                    batchSizes.add(resources.size());
+
+                    for (Resource resource : resources) {
+                        resource.addResource("owner", new AgnosticResource().addProperty("by", "callback"));
+                    }
+
+                    return resources;
+                }
+            });
+        ExpansionCache cache = new ExpansionCache(1, TimeUnit.HOURS, 10);
+        Expander.cache(cache);
+
+        try {
+            Expansion expansion = new Expansion("*", Arrays.asList("owner"));
+            Resource label = category("/labels/1").addResource("owner", new AgnosticResource()
+                .addProperty("by", "source"));
+            Expander.expand(expansion, Label.class, label);
+
+            assertEquals(2, label.getResources("owner").size());
+            assertEquals(0, cache.size());
+
+            Resource again = Expander.expand(expansion, Label.class, category("/labels/1"));
+            assertEquals(1, again.getResources("owner").size());
+            assertEquals(1, cache.size());
+            assertEquals(Arrays.asList(1, 1), batchSizes);
+        } finally {
+            Expander.cache(null);
+        }
+    }
+
+    @Test
+    public void shouldDispatchToMostSpecificSupertype() {
+        Expander.registerCallback(Animal.class, tagging("animal"));
+        Expander.registerCallback(Named.class, tagging("named"));
+        Expander.registerCallback(Puppy.class, tagging("puppy"));
+        Expansion expansion = new Expansion("*", Arrays.asList("tag"));
+
+        assertEquals("animal", Expander.expand(expansion, Dog.class, new AgnosticResource()).getProperty("tag"));
+        assertEquals("puppy", Expander.expand(expansion, Puppy.class, new AgnosticResource()).getProperty("tag"));
+        assertEquals("named", Expander.expand(expansion, Robot.class, new AgnosticResource()).getProperty("tag"));
+
+        try {
+            Expander.registerCallback(Animal.class, tagging("again"));
+            fail("Expected ExpansionException");
+        } catch (ExpansionException e) {
+            assertEquals("animal", Expander.expand(expansion, Dog.class, new AgnosticResource()).getProperty("tag"));
+        }
+    }
+
+    private ExpansionCallback tagging(final String tag) {
+        return new ExpansionCallback() {
+            public Resource expand(Expansion expansion, Resource resource) {
+                return resource.addProperty("tag", tag);
+            }
+        };
+    }
+
+    private Resource category(String href) {
+        return new AgnosticResource().addLink("self", href);
+    }
+
+    private static <T> Future<T> completed(T value) {
+        FutureTask<T> future = new FutureTask<T>(new Runnable() {
+                    public void run() {
+                    }
+                }, value);
+        future.run();
+
+        return future;
+    }
+
+    private Resource post(int authorId) {
+        return new AgnosticResource().addProperty("authorId", authorId);
+    }
+
+    private static class Post {
+    }
+
+    private static class Blog {
+    }
+
+    private static class Entry {
+    }
+
+    private static class Article {
+    }
+
+    private static class Comment {
+    }
+
+    private static class Author {
+    }
+
+    private static class Category {
+    }
+
+    private static class Tag {
+    }
+
+    private static class Label {
+    }
+
+    private static class Badge {
+    }
+
+    private static class Shelf {
+    }
+
+    private static class SpecialShelf extends Shelf {
+    }
+
+    private static class Book {
+    }
+
+    private interface Named {
+    }
+
+    private static class Animal {
+    }
+
+    private static class Dog extends Animal implements Named {
+    }
+
+    private static class Puppy extends Dog {
+    }
+
+    private static class Robot implements Named {
+    }
+}
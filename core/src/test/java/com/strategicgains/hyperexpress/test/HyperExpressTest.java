@@ -1,12 +1,18 @@
 package com.strategicgains.hyperexpress.test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.UUID;
 
 import com.strategicgains.hyperexpress.HyperExpress;
+import com.strategicgains.hyperexpress.Projection;
+import com.strategicgains.hyperexpress.builder.TokenBinder;
+import com.strategicgains.hyperexpress.builder.TokenResolver;
 import static com.strategicgains.hyperexpress.RelTypes.ALTERNATE;
 import static com.strategicgains.hyperexpress.RelTypes.NEXT;
 import static com.strategicgains.hyperexpress.RelTypes.PREV;
@@ -23,6 +29,7 @@ import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.BeforeClass;
@@ -124,6 +131,96 @@ public class HyperExpressTest {
         assertEquals("/guest-role", link.getHref());
     }
 
+    @Test
+    public void shouldProjectFieldsAndRels() {
+        Entry entry = new Entry();
+        entry.setTitle("Title");
+        entry.setContent("Content");
+        entry.setId(UUID.randomUUID());
+        HyperExpress.bind("entryId", "42").bind("adminRole", "true");
+
+        Resource r = HyperExpress.createResource(entry, "*", Projection.parse("title, id").rels(SELF));
+        assertEquals(2, r.getProperties().size());
+        assertEquals("Title", r.getProperty("title"));
+        assertEquals(entry.getId(), r.getProperty("id"));
+        assertEquals(1, r.getLinks().size());
+        assertEquals("/entries/42", r.getLinks().get(0).getHref());
+
+        r = HyperExpress.createCollectionResource(Arrays.asList(entry), Entry.class, "entries", "*",
+                Projection.fields("content"));
+        Resource item = r.getResources("entries").get(0);
+        assertEquals(1, item.getProperties().size());
+        assertEquals("Content", item.getProperty("content"));
+        assertEquals(2, item.getLinks().size());
+    }
+
+    @Test
+    public void shouldFallBackToDefaultBindings() {
+        HyperExpress.bindDefault("selfLimit", "10");
+        HyperExpress.bindDefault("selfOffset", "0");
+
+        try {
+            Resource r = HyperExpress.createCollectionResource(null, Blog.class, "*");
+            assertEquals("/blogs?limit=10&offset=0", r.getLinks().get(0).getHref());
+
+            HyperExpress.bind("selfOffset", "40");
+            r = HyperExpress.createCollectionResource(null, Blog.class, "*");
+            assertEquals("/blogs?limit=10&offset=40", r.getLinks().get(0).getHref());
+        } finally {
+            HyperExpress.clearDefaultBindings();
+        }
+    }
+
+    @Test
+    public void shouldSeeDefaultsBoundAfterResolverExists() {
+        HyperExpress.bind("selfOffset", "40");
+
+        try {
+            HyperExpress.bindDefault("selfLimit", "10");
+            Resource r = HyperExpress.createCollectionResource(null, Blog.class, "*");
+            assertEquals("/blogs?limit=10&offset=40", r.getLinks().get(0).getHref());
+
+            HyperExpress.bindDefault("selfLimit", "30");
+            r = HyperExpress.createCollectionResource(null, Blog.class, "*");
+            assertEquals("/blogs?limit=30&offset=40", r.getLinks().get(0).getHref());
+        } finally {
+            HyperExpress.clearDefaultBindings();
+        }
+
+        Resource r = HyperExpress.createCollectionResource(null, Blog.class, "*");
+        assertEquals("/blogs?offset=40", r.getLinks().get(0).getHref());
+    }
+
+    @Test
+    public void shouldParseRelSelectors() {
+        Projection p = Projection.parse(" title, _links.self ,_links.edit, _links. ");
+        assertEquals(Collections.singleton("title"), p.getFields());
+        assertEquals(new LinkedHashSet<String>(Arrays.asList(SELF, "edit")), p.getRels());
+
+        p = Projection.parse("_links.self");
+        assertTrue(p.isAllFields());
+        assertFalse(p.includesRel("edit"));
+
+        Entry entry = new Entry();
+        entry.setTitle("Title");
+        HyperExpress.bind("entryId", "42").bind("adminRole", "true");
+        Resource r = HyperExpress.createResource(entry, "*", Projection.parse("title,_links.edit"));
+        assertEquals(1, r.getProperties().size());
+        assertEquals(1, r.getLinks().size());
+        assertEquals("/entries/42/edit", r.getLinks().get(0).getHref());
+    }
+
+    @Test
+    public void shouldModifyConstantLinksOfCreatedResource() {
+        Resource r = HyperExpress.createResource(new Comment(), "*");
+        Link link = r.getLinks().get(0);
+        assertEquals("/guest-role", link.getHref());
+
+        link.set("title", "Guest");
+        assertEquals("Guest", link.get("title"));
+        assertNull(HyperExpress.createResource(new Comment(), "*").getLinks().get(0).get("title"));
+    }
+
     @Test
     public void shouldContainOptionalQueryStringParameters() {
         HyperExpress.bind("selfOffset", "40").bind("selfLimit", "20");
@@ -334,6 +431,24 @@ public class HyperExpressTest {
         assertEquals(2, r.getLinks().size());
     }
 
+    @Test
+    public void shouldExpandUriTemplateRels() {
+        HyperExpress.relationships()
+            .forClass(Page.class)
+            .rel(SELF, "/pages{/path*}")
+            .rel(NEXT, "/pages{?page,limit}");
+        HyperExpress.tokenBinder(Page.class, new TokenBinder<Page>() {
+                public void bind(Page object, TokenResolver resolver) {
+                    resolver.bind("path", "guides", "getting started");
+                    resolver.bind("page", "2");
+                }
+            });
+
+        Resource r = HyperExpress.createResource(new Page(), "*");
+        assertEquals("/pages/guides/getting%20started", r.getLinks().get(0).getHref());
+        assertEquals("/pages?page=2", r.getLinks().get(1).getHref());
+    }
+
     private List<?> getEntities() {
         return new ArrayList<Blog>();
     }
@@ -350,4 +465,7 @@ public class HyperExpressTest {
         assertFalse(r.hasProperties());
         assertFalse(r.hasResources());
     }
+
+    private static class Page {
+    }
 }
@@ -0,0 +1,81 @@
+package com.strategicgains.hyperexpress.util.test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.strategicgains.hyperexpress.util.CompiledTemplate;
+import com.strategicgains.hyperexpress.util.MapStringFormat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class CompiledTemplateTest {
+    @Test
+    public void shouldParseLiteralsAndTokens() {
+        CompiledTemplate t = CompiledTemplate.compile("/blogs/{blogId}/entries/{entryId}");
+        assertTrue(t.hasTokens());
+        assertEquals(Arrays.asList("blogId", "entryId"), t.tokens());
+        assertEquals("/blogs/{blogId}/entries/{entryId}", t.pattern());
+    }
+
+    @Test
+    public void shouldReturnPatternWhenNoTokens() {
+        String pattern = "/blogs";
+        CompiledTemplate t = CompiledTemplate.compile(pattern);
+        assertFalse(t.hasTokens());
+        assertSame(pattern, t.format(MapStringFormat.toMap("blogId", "42")));
+    }
+
+    @Test
+    public void shouldCacheCompiledTemplates() {
+        assertSame(CompiledTemplate.compile("/cached/{id}"), CompiledTemplate.compile("/cached/{id}"));
+    }
+
+    @Test
+    public void shouldKeepRecentlyUsedTemplatesCached() {
+        CompiledTemplate hot = CompiledTemplate.compile("/hot/{id}");
+        CompiledTemplate once = CompiledTemplate.compile("/once/{id}");
+
+        for (int i = 0; i < 5000; ++i) {
+            CompiledTemplate.compile("/cold/" + i);
+            assertSame(hot, CompiledTemplate.compile("/hot/{id}"));
+        }
+
+        assertNotSame(once, CompiledTemplate.compile("/once/{id}"));
+    }
+
+    @Test
+    public void shouldLeaveUnboundTokens() {
+        CompiledTemplate t = CompiledTemplate.compile("/blogs/{blogId}/entries/{entryId}");
+        StringBuilder sb = new StringBuilder();
+        assertFalse(t.formatTo(sb, MapStringFormat.toMap("blogId", "42")));
+        assertEquals("/blogs/42/entries/{entryId}", sb.toString());
+
+        sb.setLength(0);
+        assertTrue(t.formatTo(sb, MapStringFormat.toMap("blogId", "42", "entryId", "43")));
+        assertEquals("/blogs/42/entries/43", sb.toString());
+    }
+
+    @Test
+    public void shouldNotInterpretValues() {
+        Map<String, String> values = MapStringFormat.toMap("a", "$1\\", "b", "{a}");
+        assertEquals("$1\\/{a}", CompiledTemplate.compile("{a}/{b}").format(values));
+    }
+
+    @Test
+    public void shouldUseInnermostStartDelimiter() {
+        assertEquals("{x42}", CompiledTemplate.compile("{x{a}}").format(MapStringFormat.toMap("a", "42")));
+        assertEquals("{unterminated", CompiledTemplate.compile("{unterminated").format(MapStringFormat.toMap()));
+    }
+
+    @Test
+    public void shouldCompileWithStringDelimiters() {
+        CompiledTemplate t = CompiledTemplate.compile("<start>a<end>-<start>b<end>", "<start>", "<end>");
+        assertEquals(Arrays.asList("a", "b"), t.tokens());
+        assertEquals("1-<start>b<end>", t.format(MapStringFormat.toMap("a", "1")));
+    }
+}
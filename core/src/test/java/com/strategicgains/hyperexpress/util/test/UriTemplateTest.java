@@ -0,0 +1,130 @@
+package com.strategicgains.hyperexpress.util.test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.strategicgains.hyperexpress.util.UriTemplate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class UriTemplateTest {
+    private static final Map<String, Object> VALUES = new HashMap<String, Object>();
+
+    @BeforeClass
+    public static void setUpBeforeClass() {
+        Map<String, String> keys = new LinkedHashMap<String, String>();
+        keys.put("semi", ";");
+        keys.put("dot", ".");
+        keys.put("comma", ",");
+
+        VALUES.put("count", Arrays.asList("one", "two", "three"));
+        VALUES.put("dom", Arrays.asList("example", "com"));
+        VALUES.put("dub", "me/too");
+        VALUES.put("hello", "Hello World!");
+        VALUES.put("half", "50%");
+        VALUES.put("var", "value");
+        VALUES.put("who", "fred");
+        VALUES.put("base", "http://example.com/home/");
+        VALUES.put("path", "/foo/bar");
+        VALUES.put("list", Arrays.asList("red", "green", "blue"));
+        VALUES.put("keys", keys);
+        VALUES.put("v", "6");
+        VALUES.put("x", "1024");
+        VALUES.put("y", "768");
+        VALUES.put("empty", "");
+        VALUES.put("empty_keys", Collections.emptyMap());
+    }
+
+    @Test
+    public void shouldExpandLevel1() {
+        assertExpands("{var}", "value");
+        assertExpands("{hello}", "Hello%20World%21");
+        assertExpands("/blogs/{undef}", "/blogs/");
+    }
+
+    @Test
+    public void shouldExpandLevel2() {
+        assertExpands("{+var}", "value");
+        assertExpands("{+hello}", "Hello%20World!");
+        assertExpands("{+path}/here", "/foo/bar/here");
+        assertExpands("here?ref={+path}", "here?ref=/foo/bar");
+        assertExpands("{+half}", "50%25");
+        assertExpands("X{#var}", "X#value");
+        assertExpands("X{#hello}", "X#Hello%20World!");
+    }
+
+    @Test
+    public void shouldExpandLevel3() {
+        assertExpands("map?{x,y}", "map?1024,768");
+        assertExpands("{x,hello,y}", "1024,Hello%20World%21,768");
+        assertExpands("{+x,hello,y}", "1024,Hello%20World!,768");
+        assertExpands("{+path,x}/here", "/foo/bar,1024/here");
+        assertExpands("{#x,hello,y}", "#1024,Hello%20World!,768");
+        assertExpands("X{.var}", "X.value");
+        assertExpands("X{.x,y}", "X.1024.768");
+        assertExpands("{/var}", "/value");
+        assertExpands("{/var,x}/here", "/value/1024/here");
+        assertExpands("{;x,y}", ";x=1024;y=768");
+        assertExpands("{;x,y,empty}", ";x=1024;y=768;empty");
+        assertExpands("{?x,y}", "?x=1024&y=768");
+        assertExpands("{?x,y,empty}", "?x=1024&y=768&empty=");
+        assertExpands("?fixed=yes{&x}", "?fixed=yes&x=1024");
+        assertExpands("{&x,y,empty}", "&x=1024&y=768&empty=");
+        assertExpands("{?x,undef}", "?x=1024");
+    }
+
+    @Test
+    public void shouldExpandLevel4() {
+        assertExpands("{var:3}", "val");
+        assertExpands("{var:30}", "value");
+        assertExpands("{list}", "red,green,blue");
+        assertExpands("{list*}", "red,green,blue");
+        assertExpands("{keys}", "semi,%3B,dot,.,comma,%2C");
+        assertExpands("{keys*}", "semi=%3B,dot=.,comma=%2C");
+        assertExpands("{+path:6}/here", "/foo/b/here");
+        assertExpands("{+keys*}", "semi=;,dot=.,comma=,");
+        assertExpands("{#list*}", "#red,green,blue");
+        assertExpands("X{.list*}", "X.red.green.blue");
+        assertExpands("{/list*,path:4}", "/red/green/blue/%2Ffoo");
+        assertExpands("{;list}", ";list=red,green,blue");
+        assertExpands("{;list*}", ";list=red;list=green;list=blue");
+        assertExpands("{;keys*}", ";semi=%3B;dot=.;comma=%2C");
+        assertExpands("{?list}", "?list=red,green,blue");
+        assertExpands("{?list*}", "?list=red&list=green&list=blue");
+        assertExpands("{?keys*}", "?semi=%3B&dot=.&comma=%2C");
+        assertExpands("{&list*}", "&list=red&list=green&list=blue");
+        assertExpands("{?empty_keys*}", "");
+    }
+
+    @Test
+    public void shouldEncodeMultibyteCharacters() {
+        assertEquals("%C3%BC%F0%9F%98%80", UriTemplate.compile("{s}").expand(Collections.singletonMap("s",
+                    "\u00fc\ud83d\ude00")));
+    }
+
+    @Test
+    public void shouldCacheCompiledTemplates() {
+        assertSame(UriTemplate.compile("/blogs{?limit,offset}"), UriTemplate.compile("/blogs{?limit,offset}"));
+        assertEquals(Arrays.asList("limit", "offset"), UriTemplate.compile("/blogs{?limit,offset}").variableNames());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnterminatedExpression() {
+        UriTemplate.compile("/blogs/{blogId");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidPrefix() {
+        UriTemplate.compile("/blogs/{blogId:x}");
+    }
+
+    private void assertExpands(String template, String expected) {
+        assertEquals(expected, UriTemplate.compile(template).expand(VALUES));
+    }
+}
@@ -100,7 +100,11 @@ public class HalLink {
     }
 
     public boolean hasTemplate() {
-        return TEMPLATE_PATTERN.matcher(getHref()).find();
+        return isTemplated(getHref());
+    }
+
+    public static boolean isTemplated(String href) {
+        return TEMPLATE_PATTERN.matcher(href).find();
     }
 
     public HalLink setTemplated(Boolean templated) {
@@ -1,7 +1,96 @@
 package com.strategicgains.hyperexpress.domain.hal;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import com.strategicgains.hyperexpress.domain.AbstractResource;
 import com.strategicgains.hyperexpress.domain.Resource;
 
+/**
+ * Embedded resources may be deferred with {@link #deferResources(String, EmbeddedSource)}; a deferred rel is read
+ * from its source the first time its resources are asked for (or another resource is added under it).
+ */
 public class HalResource extends AbstractResource implements Resource {
+    private Map<String, EmbeddedSource> deferred;
+
+    /**
+     * Supplies the embedded resources for one rel when they are first needed.
+     */
+    public interface EmbeddedSource {
+        List<? extends Resource> read();
+    }
+
+    public HalResource deferResources(String rel, EmbeddedSource source) {
+        readDeferred(rel);
+
+        if (deferred == null) {
+            deferred = new LinkedHashMap<String, EmbeddedSource>(4);
+        }
+
+        deferred.put(rel, source);
+
+        return this;
+    }
+
+    public boolean isDeferred(String rel) {
+        return (deferred != null && deferred.containsKey(rel));
+    }
+
+    public Resource addResource(String rel, Resource resource, boolean isMultiple) {
+        readDeferred(rel);
+
+        return super.addResource(rel, resource, isMultiple);
+    }
+
+    public Resource addResources(String rel, Collection<Resource> collection) {
+        readDeferred(rel);
+
+        return super.addResources(rel, collection);
+    }
+
+    public Map<String, List<Resource>> getResources() {
+        if (deferred != null) {
+            for (String rel : new ArrayList<String>(deferred.keySet())) {
+                readDeferred(rel);
+            }
+        }
+
+        return super.getResources();
+    }
+
+    public List<Resource> getResources(String rel) {
+        readDeferred(rel);
+
+        return super.getResources(rel);
+    }
+
+    public boolean hasResources() {
+        return ((deferred != null && !deferred.isEmpty()) || super.hasResources());
+    }
+
+    public boolean hasResources(String rel) {
+        return (isDeferred(rel) || super.hasResources(rel));
+    }
+
+    /**
+     * Reads the rel's source, if it is deferred. The source is dropped only after a successful read, so a rel whose
+     * read throws stays deferred and is read again on the next access.
+     */
+    private void readDeferred(String rel) {
+        EmbeddedSource source = (deferred == null ? null : deferred.get(rel));
+
+        if (source == null) {
+            return;
+        }
+
+        List<? extends Resource> resources = source.read();
+        deferred.remove(rel);
+
+        for (Resource resource : resources) {
+            super.addResource(rel, resource, false);
+        }
+    }
 }
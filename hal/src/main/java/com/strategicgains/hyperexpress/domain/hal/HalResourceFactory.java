@@ -1,6 +1,7 @@
 package com.strategicgains.hyperexpress.domain.hal;
 
 import com.strategicgains.hyperexpress.AbstractResourceFactoryStrategy;
+import com.strategicgains.hyperexpress.Projection;
 import com.strategicgains.hyperexpress.domain.Resource;
 
 public class HalResourceFactory extends AbstractResourceFactoryStrategy {
@@ -14,6 +15,15 @@ public class HalResourceFactory extends AbstractResourceFactoryStrategy {
         return r;
     }
 
+    /**
+     * Copies the object's projected properties into the resource, exactly as createResource(Object, Projection)
+     * does. Without a projection that may use a generated copier; projected copies always read the included
+     * fields through the property accessors and overridden addProperty().
+     */
+    public void copyProperties(Object from, Resource to, Projection projection) {
+        super.copyProperties(from, to, projection);
+    }
+
     public Class<? extends Resource> getResourceType() {
         return HalResource.class;
     }
@@ -0,0 +1,92 @@
+package com.strategicgains.hyperexpress.serialization.jackson;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.strategicgains.hyperexpress.domain.Link;
+import com.strategicgains.hyperexpress.domain.hal.HalLink;
+
+/**
+ * Writes a Link as a HAL link object, reading its attributes directly instead of copying them into a HalLink.
+ * Attributes are written in HalLink field order under pre-encoded names, leaving out null (and, for NON_EMPTY,
+ * empty) attributes as the serialization inclusion asks, just as Jackson would for the HalLink bean. templated
+ * comes from the link's templated attribute when set, otherwise from {@link Link#hasToken()}, which the link
+ * builders record while rendering the href.
+ */
+final class HalLinkWriter {
+    private static final SerializableString HREF = new SerializedString(HalLink.HREF);
+    private static final SerializableString NAME = new SerializedString(HalLink.NAME);
+    private static final SerializableString HREFLANG = new SerializedString(HalLink.HREFLANG);
+    private static final SerializableString TITLE = new SerializedString(HalLink.TITLE);
+    private static final SerializableString TEMPLATED = new SerializedString(HalLink.TEMPLATED);
+    private static final SerializableString TYPE = new SerializedString(HalLink.TYPE);
+    private static final SerializableString DEPRECATION = new SerializedString(HalLink.DEPRECATION);
+    private static final SerializableString PROFILE = new SerializedString(HalLink.PROFILE);
+
+    private HalLinkWriter() {
+        super();
+    }
+
+    static void write(Link link, JsonInclude.Include inclusion, JsonGenerator jgen)
+    throws IOException {
+        String href = link.getHref();
+        boolean writeNulls = (inclusion == null || inclusion == JsonInclude.Include.ALWAYS);
+        boolean writeEmpty = (inclusion != JsonInclude.Include.NON_EMPTY);
+
+        jgen.writeStartObject();
+        writeString(HREF, href, writeNulls, writeEmpty, jgen);
+        writeString(NAME, link.get(HalLink.NAME), writeNulls, writeEmpty, jgen);
+        writeString(HREFLANG, link.get(HalLink.HREFLANG), writeNulls, writeEmpty, jgen);
+        writeString(TITLE, link.get(HalLink.TITLE), writeNulls, writeEmpty, jgen);
+
+        String templated = link.get(HalLink.TEMPLATED);
+
+        if (templated != null) {
+            jgen.writeFieldName(TEMPLATED);
+            jgen.writeBoolean(Boolean.parseBoolean(templated));
+        } else if (href != null && link.hasToken()) {
+            jgen.writeFieldName(TEMPLATED);
+            jgen.writeBoolean(true);
+        } else if (writeNulls) {
+            jgen.writeFieldName(TEMPLATED);
+            jgen.writeNull();
+        }
+
+        writeString(TYPE, link.get(HalLink.TYPE), writeNulls, writeEmpty, jgen);
+        writeString(DEPRECATION, link.get(HalLink.DEPRECATION), writeNulls, writeEmpty, jgen);
+        writeString(PROFILE, link.get(HalLink.PROFILE), writeNulls, writeEmpty, jgen);
+        jgen.writeEndObject();
+    }
+
+    /**
+     * The serialization inclusion of the mapper writing to the generator, or null when it isn't an ObjectMapper.
+     */
+    static JsonInclude.Include inclusionOf(JsonGenerator jgen) {
+        ObjectCodec codec = jgen.getCodec();
+
+        if (codec instanceof ObjectMapper) {
+            return ((ObjectMapper) codec).getSerializationConfig().getSerializationInclusion();
+        }
+
+        return null;
+    }
+
+    private static void writeString(SerializableString name, String value, boolean writeNulls, boolean writeEmpty,
+        JsonGenerator jgen)
+    throws IOException {
+        if (value == null) {
+            if (writeNulls) {
+                jgen.writeFieldName(name);
+                jgen.writeNull();
+            }
+        } else if (writeEmpty || !value.isEmpty()) {
+            jgen.writeFieldName(name);
+            jgen.writeString(value);
+        }
+    }
+}
@@ -1,32 +1,43 @@
 package com.strategicgains.hyperexpress.serialization.jackson;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.util.List;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.strategicgains.hyperexpress.BuilderFactory;
 import com.strategicgains.hyperexpress.builder.DefaultBuilderFactory;
 import com.strategicgains.hyperexpress.builder.LinkBuilder;
 import com.strategicgains.hyperexpress.domain.Namespace;
 import com.strategicgains.hyperexpress.domain.hal.HalResource;
-
+import com.strategicgains.hyperexpress.exception.ResourceException;
+
+/**
+ * Builds HalResources directly from the parser's token stream, without first reading the document into a JsonNode
+ * tree, so peak memory stays close to the size of the resulting resources.
+ * <p/>
+ * With {@link #lazyEmbedded(boolean)} enabled, each _embedded rel is only copied into a TokenBuffer and deferred on
+ * the HalResource; it is parsed the first time its resources are asked for.
+ */
 public class HalResourceDeserializer extends JsonDeserializer<HalResource> {
     private static final String LINKS = "_links";
     private static final String CURIES = "curies";
     private static final String EMBEDDED = "_embedded";
-    private static final Set<String> RESERVED_PROPERTIES = new HashSet<>(Arrays.asList(LINKS, EMBEDDED));
+    private static final String HREF = "href";
 
     private BuilderFactory factory;
+    private boolean isLazyEmbedded = false;
 
     public HalResourceDeserializer() {
         super();
@@ -38,128 +49,327 @@ public class HalResourceDeserializer extends JsonDeserializer<HalResource> {
         this.factory = factory;
     }
 
+    public HalResourceDeserializer lazyEmbedded(boolean value) {
+        this.isLazyEmbedded = value;
+
+        return this;
+    }
+
+    public boolean isLazyEmbedded() {
+        return isLazyEmbedded;
+    }
+
     public HalResource deserialize(JsonParser jp, DeserializationContext context) throws IOException,
         JsonProcessingException {
-        ObjectCodec oc = jp.getCodec();
+        startObject(jp, context, HalResource.class);
+
+        return deserializeFields(jp);
+    }
 
-        return deserializeResource((JsonNode) jp.readValueAsTree(), oc);
+    public <T> T deserialize(JsonParser jp, DeserializationContext context, Class<T> type)
+    throws IOException {
+        return deserialize(jp, context, type, null);
     }
 
-    private HalResource deserializeResource(JsonNode root, ObjectCodec oc) throws JsonProcessingException, IOException {
+    /**
+     * Reads one HAL document from the parser with the mapper's configuration; see
+     * {@link #deserialize(JsonParser, DeserializationContext, Class, HalResource)}.
+     */
+    public <T> T deserialize(ObjectMapper mapper, JsonParser jp, Class<T> type, HalResource resource)
+    throws IOException {
+        DefaultDeserializationContext context = ((DefaultDeserializationContext) mapper.getDeserializationContext())
+            .createInstance(mapper.getDeserializationConfig(), jp, null);
+
+        if (jp.getCurrentToken() == null) {
+            jp.nextToken();
+        }
+
+        return deserialize(jp, context, type, resource);
+    }
+
+    /**
+     * Binds the document's properties into an instance of the given type in the same pass, without building a
+     * HalResource for them. The type's own Jackson deserializer does the binding, so creators, any-setters, ignored
+     * and unknown properties and injectables behave as they would for plain JSON; it simply never sees the _links
+     * and _embedded fields. Those are read into the given resource, or skipped when it is null.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(JsonParser jp, DeserializationContext context, Class<T> type, HalResource resource)
+    throws IOException {
+        startObject(jp, context, type);
+        JsonDeserializer<Object> deserializer = context.findRootValueDeserializer(context.constructType(type));
+        HalFieldReader properties = new HalFieldReader(jp, resource);
+        properties.readHalFields(jp.getCurrentToken());
+
+        return (T) deserializer.deserialize(properties, context);
+    }
+
+    private void startObject(JsonParser jp, DeserializationContext context, Class<?> type)
+    throws IOException {
+        JsonToken token = jp.getCurrentToken();
+
+        if (token == JsonToken.START_OBJECT) {
+            jp.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            throw context.mappingException(type, token);
+        }
+    }
+
+    /**
+     * Reads fields up to and including the END_OBJECT of the current object. The parser is positioned on the first
+     * FIELD_NAME (or END_OBJECT) when called.
+     */
+    private HalResource deserializeFields(JsonParser jp)
+    throws IOException {
         HalResource resource = new HalResource();
-        processLinks(root.get(LINKS), resource, oc);
-        processEmbedded(root.get(EMBEDDED), resource, oc);
-        processProperties(root, resource);
+
+        for (; jp.getCurrentToken() == JsonToken.FIELD_NAME; jp.nextToken()) {
+            String name = jp.getCurrentName();
+            JsonToken value = jp.nextToken();
+
+            if (LINKS.equals(name)) {
+                processLinks(jp, resource);
+            } else if (EMBEDDED.equals(name)) {
+                processEmbedded(jp, resource);
+            } else {
+                resource.setProperty(name, readValue(jp, value));
+            }
+        }
 
         return resource;
     }
 
-    private void processLinks(JsonNode links, HalResource resource, ObjectCodec oc) throws JsonProcessingException,
-        IOException {
-        if (links == null) {
-            return;
+    /**
+     * Reads a property value as its native JSON type: String, Number, Boolean, null, or (through the codec) a Map
+     * or List for objects and arrays.
+     */
+    private Object readValue(JsonParser jp, JsonToken value)
+    throws IOException {
+        switch (value) {
+            case VALUE_STRING:
+                return jp.getText();
+
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return jp.getNumberValue();
+
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+
+            case VALUE_NULL:
+                return null;
+
+            default:
+                return jp.readValueAs(Object.class);
         }
+    }
 
-        processCuries(links.get(CURIES), resource, oc);
+    private void processLinks(JsonParser jp, HalResource resource)
+    throws IOException {
+        if (jp.getCurrentToken() != JsonToken.START_OBJECT) {
+            jp.skipChildren();
 
-        Iterator<Entry<String, JsonNode>> fields = links.fields();
+            return;
+        }
 
-        while (fields.hasNext()) {
-            Entry<String, JsonNode> field = fields.next();
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String rel = jp.getCurrentName();
+            JsonToken value = jp.nextToken();
 
-            if (CURIES.equals(field.getKey())) {
-                continue;
-            }
+            if (CURIES.equals(rel)) {
+                processCuries(jp, resource);
+            } else if (value == JsonToken.START_ARRAY) {
+                LinkBuilder lb = factory.newLinkBuilder();
 
-            if (field.getValue().isArray()) {
-                addAllLinks(resource, field);
+                while (jp.nextToken() != JsonToken.END_ARRAY) {
+                    addLink(jp, lb, rel, resource);
+                    lb.clearAttributes();
+                }
             } else {
-                addLink(resource, field);
+                addLink(jp, factory.newLinkBuilder(), rel, resource);
             }
         }
     }
 
-    private void processCuries(JsonNode curies, HalResource resource, ObjectCodec oc) throws JsonProcessingException,
-        IOException {
-        if (curies == null) {
-            return;
+    private void processCuries(JsonParser jp, HalResource resource)
+    throws IOException {
+        if (jp.getCurrentToken() == JsonToken.START_ARRAY) {
+            resource.addNamespaces(Arrays.asList(jp.readValueAs(Namespace[].class)));
+        } else {
+            resource.addNamespace(jp.readValueAs(Namespace.class));
         }
+    }
 
-        if (curies.isArray()) {
-            resource.addNamespaces(Arrays.asList(curies.traverse(oc).readValueAs(Namespace[].class)));
+    private void addLink(JsonParser jp, LinkBuilder lb, String rel, HalResource resource)
+    throws IOException {
+        lb.rel(rel);
+
+        if (jp.getCurrentToken() == JsonToken.START_OBJECT) {
+            while (jp.nextToken() == JsonToken.FIELD_NAME) {
+                String name = jp.getCurrentName();
+
+                if (jp.nextToken().isStructStart()) {
+                    jp.skipChildren();
+                    lb.set(name, "");
+                } else if (HREF.equals(name)) {
+                    lb.urlPattern(jp.getText());
+                } else {
+                    lb.set(name, jp.getText());
+                }
+            }
         } else {
-            resource.addNamespace(curies.traverse(oc).readValueAs(Namespace.class));
+            jp.skipChildren();
         }
+
+        resource.addLink(lb.build());
     }
 
-    private void addAllLinks(HalResource resource, Entry<String, JsonNode> field) {
-        LinkBuilder lb = factory.newLinkBuilder();
-        Iterator<JsonNode> values = field.getValue().elements();
+    private void processEmbedded(JsonParser jp, HalResource resource)
+    throws IOException {
+        if (jp.getCurrentToken() != JsonToken.START_OBJECT) {
+            jp.skipChildren();
+
+            return;
+        }
 
-        while (values.hasNext()) {
-            lb.rel(field.getKey());
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            String rel = jp.getCurrentName();
 
-            JsonNode value = values.next();
-            processLinkProperties(lb, value);
-            resource.addLink(lb.build());
-            lb.clearAttributes();
+            if (isLazyEmbedded) {
+                deferEmbedded(jp, rel, resource);
+            } else if (jp.nextToken() == JsonToken.START_ARRAY) {
+                while (jp.nextToken() != JsonToken.END_ARRAY) {
+                    resource.addResource(rel, deserializeEmbedded(jp));
+                }
+            } else {
+                resource.addResource(rel, deserializeEmbedded(jp));
+            }
         }
     }
 
-    private void addLink(HalResource resource, Entry<String, JsonNode> field) {
-        LinkBuilder lb = factory.newLinkBuilder();
-        lb.rel(field.getKey());
-        processLinkProperties(lb, field.getValue());
-        resource.addLink(lb.build());
-    }
+    /**
+     * Copies the rel's value into a TokenBuffer. An empty array is dropped, as the eager path adds nothing for it.
+     */
+    private void deferEmbedded(JsonParser jp, String rel, HalResource resource)
+    throws IOException {
+        TokenBuffer buffer = new TokenBuffer(jp.getCodec(), false);
 
-    private void processLinkProperties(LinkBuilder lb, JsonNode value) {
-        Iterator<Entry<String, JsonNode>> elements = value.fields();
+        if (jp.nextToken() == JsonToken.START_ARRAY) {
+            if (jp.nextToken() == JsonToken.END_ARRAY) {
+                return;
+            }
 
-        while (elements.hasNext()) {
-            Entry<String, JsonNode> element = elements.next();
+            buffer.writeStartArray();
 
-            if ("href".equals(element.getKey())) {
-                lb.urlPattern(element.getValue().asText());
-            } else {
-                lb.set(element.getKey(), element.getValue().asText());
-            }
+            do {
+                buffer.copyCurrentStructure(jp);
+            } while (jp.nextToken() != JsonToken.END_ARRAY);
+
+            buffer.writeEndArray();
+        } else {
+            buffer.copyCurrentStructure(jp);
         }
+
+        resource.deferResources(rel, new BufferedEmbedded(buffer, jp.getCodec()));
     }
 
-    private void processEmbedded(JsonNode embedded, HalResource resource, ObjectCodec oc)
-        throws JsonProcessingException, IOException {
-        if (embedded == null) {
-            return;
+    private HalResource deserializeEmbedded(JsonParser jp)
+    throws IOException {
+        if (jp.getCurrentToken() != JsonToken.START_OBJECT) {
+            jp.skipChildren();
+
+            return new HalResource();
         }
 
-        Iterator<Map.Entry<String, JsonNode>> fields = embedded.fields();
+        jp.nextToken();
 
-        while (fields.hasNext()) {
-            Map.Entry<String, JsonNode> fieldEntry = fields.next();
+        return deserializeFields(jp);
+    }
+
+    /**
+     * Hides the _links and _embedded fields of one object from the deserializer reading it, reading them into the
+     * resource (or skipping them) as they are passed. Fields of nested objects are not touched.
+     */
+    private class HalFieldReader extends JsonParserDelegate {
+        private final HalResource resource;
+        private final JsonStreamContext object;
+
+        HalFieldReader(JsonParser jp, HalResource resource) {
+            super(jp);
+            this.resource = resource;
+            this.object = jp.getParsingContext();
+        }
+
+        public JsonToken nextToken()
+        throws IOException {
+            return readHalFields(delegate.nextToken());
+        }
 
-            if (fieldEntry.getValue().isArray()) {
-                Iterator<JsonNode> values = fieldEntry.getValue().elements();
+        public JsonToken nextValue()
+        throws IOException {
+            JsonToken token = nextToken();
 
-                while (values.hasNext()) {
-                    JsonNode value = values.next();
-                    resource.addResource(fieldEntry.getKey(), deserializeResource(value, oc));
+            return (token == JsonToken.FIELD_NAME ? nextToken() : token);
+        }
+
+        /**
+         * Consumes the HAL fields starting at the given token and returns the first token after them.
+         */
+        JsonToken readHalFields(JsonToken token)
+        throws IOException {
+            while (token == JsonToken.FIELD_NAME && delegate.getParsingContext() == object) {
+                String name = delegate.getCurrentName();
+
+                if (!LINKS.equals(name) && !EMBEDDED.equals(name)) {
+                    break;
                 }
-            } else {
-                resource.addResource(fieldEntry.getKey(), deserializeResource(fieldEntry.getValue(), oc));
+
+                delegate.nextToken();
+
+                if (resource == null) {
+                    delegate.skipChildren();
+                } else if (LINKS.equals(name)) {
+                    processLinks(delegate, resource);
+                } else {
+                    processEmbedded(delegate, resource);
+                }
+
+                token = delegate.nextToken();
             }
+
+            return token;
         }
     }
 
-    private void processProperties(JsonNode root, HalResource resource) {
-        Iterator<Entry<String, JsonNode>> fields = root.fields();
+    private class BufferedEmbedded implements HalResource.EmbeddedSource {
+        private final TokenBuffer buffer;
+        private final ObjectCodec codec;
 
-        while (fields.hasNext()) {
-            Entry<String, JsonNode> fieldEntry = fields.next();
+        BufferedEmbedded(TokenBuffer buffer, ObjectCodec codec) {
+            super();
+            this.buffer = buffer;
+            this.codec = codec;
+        }
+
+        public List<HalResource> read() {
+            List<HalResource> resources = new ArrayList<HalResource>();
 
-            if (!RESERVED_PROPERTIES.contains(fieldEntry.getKey())) {
-                resource.setProperty(fieldEntry.getKey(), fieldEntry.getValue().asText());
+            try (JsonParser jp = buffer.asParser(codec)) {
+                if (jp.nextToken() == JsonToken.START_ARRAY) {
+                    while (jp.nextToken() != JsonToken.END_ARRAY) {
+                        resources.add(deserializeEmbedded(jp));
+                    }
+                } else {
+                    resources.add(deserializeEmbedded(jp));
+                }
+            } catch (IOException e) {
+                throw new ResourceException("Cannot read embedded resources", e);
             }
+
+            return resources;
         }
     }
 }
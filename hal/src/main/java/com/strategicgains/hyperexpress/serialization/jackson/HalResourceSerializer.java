@@ -1,12 +1,11 @@
 package com.strategicgains.hyperexpress.serialization.jackson;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -15,7 +14,6 @@ import com.fasterxml.jackson.databind.SerializerProvider;
 import com.strategicgains.hyperexpress.domain.Link;
 import com.strategicgains.hyperexpress.domain.Namespace;
 import com.strategicgains.hyperexpress.domain.Resource;
-import com.strategicgains.hyperexpress.domain.hal.HalLink;
 import com.strategicgains.hyperexpress.domain.hal.HalResource;
 
 public class HalResourceSerializer extends JsonSerializer<HalResource> {
@@ -30,77 +28,50 @@ public class HalResourceSerializer extends JsonSerializer<HalResource> {
     public void serialize(HalResource resource, JsonGenerator jgen, SerializerProvider provider) throws IOException,
         JsonProcessingException {
         jgen.writeStartObject();
-        renderJson(resource, jgen, false);
+        renderJson(resource, provider.getConfig().getSerializationInclusion(), jgen, false);
         jgen.writeEndObject();
     }
 
-    private void renderJson(HalResource resource, JsonGenerator jgen, boolean isEmbedded)
+    void renderJson(HalResource resource, JsonInclude.Include inclusion, JsonGenerator jgen, boolean isEmbedded)
         throws JsonGenerationException, IOException {
-        writeLinks(resource, isEmbedded, jgen);
-        writeEmbedded(resource, jgen);
+        writeLinks(resource, inclusion, isEmbedded, jgen);
+        writeEmbedded(resource, inclusion, jgen);
         writeProperties(resource.getProperties(), jgen);
     }
 
-    private void writeLinks(HalResource resource, boolean isEmbedded, JsonGenerator jgen)
-        throws JsonGenerationException, IOException {
-        List<Link> links = resource.getLinks();
+    private void writeLinks(HalResource resource, JsonInclude.Include inclusion, boolean isEmbedded,
+        JsonGenerator jgen) throws JsonGenerationException, IOException {
+        Map<String, List<Link>> linksByRel = resource.getLinksByRel();
         List<Namespace> namespaces = resource.getNamespaces();
 
-        if (links.isEmpty() && (isEmbedded || namespaces.isEmpty())) {
+        if (linksByRel.isEmpty() && (isEmbedded || namespaces.isEmpty())) {
             return;
         }
 
         jgen.writeObjectFieldStart(LINKS);
         writeCuries(namespaces, isEmbedded, jgen);
 
-        Map<String, List<HalLink>> linksByRel = indexLinksByRel(resource.getLinks());
+        for (Entry<String, List<Link>> entry : linksByRel.entrySet()) {
+            List<Link> links = entry.getValue();
 
-        for (Entry<String, List<HalLink>> entry : linksByRel.entrySet()) {
-            if (entry.getValue().size() == 1 && !resource.isMultipleLinks(entry.getKey())) // Write single link
+            if (links.size() == 1 && !resource.isMultipleLinks(entry.getKey())) // Write single link
             {
-                HalLink link = entry.getValue().iterator().next();
-
-                if (null == link.getTemplated()) {
-                    link.setTemplated(link.hasTemplate() ? true : null);
-                }
-
-                jgen.writeObjectField(entry.getKey(), link);
+                jgen.writeFieldName(entry.getKey());
+                HalLinkWriter.write(links.get(0), inclusion, jgen);
             } else {
                 jgen.writeArrayFieldStart(entry.getKey());
 
-                for (HalLink link : entry.getValue()) {
-                    if (null == link.getTemplated()) {
-                        link.setTemplated(link.hasTemplate() ? true : null);
-                    }
-
-                    jgen.writeObject(link);
+                for (int i = 0; i < links.size(); ++i) {
+                    HalLinkWriter.write(links.get(i), inclusion, jgen);
                 }
 
                 jgen.writeEndArray();
             }
-
         }
 
         jgen.writeEndObject();
     }
 
-    private Map<String, List<HalLink>> indexLinksByRel(List<Link> links) {
-        Map<String, List<HalLink>> linksByRel = new HashMap<String, List<HalLink>>();
-
-        for (Link link : links) {
-            List<HalLink> linksForRel = linksByRel.get(link.getRel());
-
-            if (linksForRel == null) {
-                linksForRel = new ArrayList<HalLink>();
-                linksByRel.put(link.getRel(), linksForRel);
-            }
-
-            linksForRel.add(new HalLink(link));
-        }
-
-        return linksByRel;
-    }
-
     private void writeCuries(List<Namespace> namespaces, boolean isEmbedded, JsonGenerator jgen) throws IOException,
         JsonGenerationException, JsonProcessingException {
         if (isEmbedded || namespaces.isEmpty()) {
@@ -121,7 +92,8 @@ public class HalResourceSerializer extends JsonSerializer<HalResource> {
         }
     }
 
-    private void writeEmbedded(Resource resource, JsonGenerator jgen) throws JsonGenerationException, IOException {
+    private void writeEmbedded(Resource resource, JsonInclude.Include inclusion, JsonGenerator jgen)
+        throws JsonGenerationException, IOException {
         Map<String, List<Resource>> embedded = resource.getResources();
 
         if (embedded.isEmpty()) {
@@ -133,14 +105,14 @@ public class HalResourceSerializer extends JsonSerializer<HalResource> {
         for (Entry<String, List<Resource>> entry : embedded.entrySet()) {
             if (entry.getValue().size() == 1 && !resource.isMultipleResources(entry.getKey())) {
                 jgen.writeObjectFieldStart(entry.getKey());
-                renderJson((HalResource) entry.getValue().iterator().next(), jgen, true);
+                renderJson((HalResource) entry.getValue().iterator().next(), inclusion, jgen, true);
                 jgen.writeEndObject();
             } else {
                 jgen.writeArrayFieldStart(entry.getKey());
 
                 for (Resource r : entry.getValue()) {
                     jgen.writeStartObject();
-                    renderJson((HalResource) r, jgen, true);
+                    renderJson((HalResource) r, inclusion, jgen, true);
                     jgen.writeEndObject();
                 }
 
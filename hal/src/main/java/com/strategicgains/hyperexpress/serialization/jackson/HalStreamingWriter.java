@@ -0,0 +1,298 @@
+package com.strategicgains.hyperexpress.serialization.jackson;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.strategicgains.hyperexpress.HyperExpress;
+import com.strategicgains.hyperexpress.Projection;
+import com.strategicgains.hyperexpress.builder.AbstractTokenResolver;
+import com.strategicgains.hyperexpress.builder.CompiledRelationships;
+import com.strategicgains.hyperexpress.builder.LinkPlan;
+import com.strategicgains.hyperexpress.builder.RelationshipDefinition;
+import com.strategicgains.hyperexpress.builder.TokenResolver;
+import com.strategicgains.hyperexpress.domain.Link;
+import com.strategicgains.hyperexpress.domain.Namespace;
+import com.strategicgains.hyperexpress.domain.Resource;
+import com.strategicgains.hyperexpress.domain.hal.HalResource;
+import com.strategicgains.hyperexpress.domain.hal.HalResourceFactory;
+import com.strategicgains.hyperexpress.exception.ResourceException;
+
+/**
+ * Writes HAL JSON for a domain object (or a collection of them) directly to a JsonGenerator, writing each property
+ * as the factory copies it and walking the compiled {@link LinkPlan}, without building a HalResource or HalLink tree
+ * first. The output is the same as creating the resource with HyperExpress and serializing it with
+ * {@link HalResourceSerializer}. Objects that already are Resources are written through that two-phase path.
+ */
+public class HalStreamingWriter {
+    private static final String CURIES = "curies";
+    private static final String EMBEDDED = "_embedded";
+    private static final String LINKS = "_links";
+
+    private final HalResourceFactory factory;
+    private final RelationshipDefinition relationships;
+    private final HalResourceSerializer serializer = new HalResourceSerializer();
+
+    public HalStreamingWriter() {
+        this(new HalResourceFactory(), null);
+    }
+
+    /**
+     * @param factory copies the properties to write, as it would into a resource.
+     * @param relationships the relationships to link with, or null to use HyperExpress.relationships().
+     */
+    public HalStreamingWriter(HalResourceFactory factory, RelationshipDefinition relationships) {
+        super();
+        this.factory = factory;
+        this.relationships = relationships;
+    }
+
+    public void write(Object object, JsonGenerator jgen)
+    throws IOException {
+        write(object, HyperExpress.tokenResolver(), Projection.ALL, jgen);
+    }
+
+    public void write(Object object, TokenResolver resolver, Projection projection, JsonGenerator jgen)
+    throws IOException {
+        CompiledRelationships compiled = compiled();
+        LinkPlan plan = compiled.getLinkPlan(object == null ? null : object.getClass());
+        JsonInclude.Include inclusion = HalLinkWriter.inclusionOf(jgen);
+
+        if (object instanceof Resource) {
+            jgen.writeStartObject();
+            serializer.renderJson(toResource(object, plan, resolver, projection), inclusion, jgen, false);
+            jgen.writeEndObject();
+
+            return;
+        }
+
+        jgen.writeStartObject();
+
+        if (object != null) {
+            writeLinks(buildLinks(plan, object, resolver, projection), plan, plan.getNamespaces(), false, inclusion,
+                jgen);
+            writeProperties(object, projection, jgen);
+        } else {
+            writeLinks(new Link[0], plan, plan.getNamespaces(), false, inclusion, jgen);
+        }
+
+        jgen.writeEndObject();
+    }
+
+    public void writeCollection(Collection<?> components, Class<?> componentType, JsonGenerator jgen)
+    throws IOException {
+        writeCollection(components, componentType, compiled().getCollectionRelFor(componentType),
+            HyperExpress.tokenResolver(), Projection.ALL, jgen);
+    }
+
+    public void writeCollection(Collection<?> components, Class<?> componentType, String componentRel,
+        TokenResolver resolver, Projection projection, JsonGenerator jgen)
+    throws IOException {
+        CompiledRelationships compiled = compiled();
+        LinkPlan rootPlan = compiled.getCollectionLinkPlan(componentType);
+        LinkPlan plan = compiled.getLinkPlan(componentType);
+        JsonInclude.Include inclusion = HalLinkWriter.inclusionOf(jgen);
+
+        jgen.writeStartObject();
+        writeLinks(buildLinks(rootPlan, null, resolver, projection), rootPlan, rootPlan.getNamespaces(), false,
+            inclusion, jgen);
+        jgen.writeObjectFieldStart(EMBEDDED);
+        jgen.writeArrayFieldStart(componentRel);
+
+        if (components != null) {
+            for (Object component : components) {
+                jgen.writeStartObject();
+
+                if (component instanceof Resource) {
+                    HalResource r = (HalResource) factory.createResource(component);
+                    plan.addLinks(r, component, resolver, projection);
+                    serializer.renderJson(r, inclusion, jgen, true);
+                } else {
+                    writeLinks(buildLinks(plan, component, resolver, projection), plan, null, true, inclusion, jgen);
+                    writeProperties(component, projection, jgen);
+                }
+
+                jgen.writeEndObject();
+            }
+        }
+
+        jgen.writeEndArray();
+        jgen.writeEndObject();
+        jgen.writeEndObject();
+    }
+
+    private Link[] buildLinks(LinkPlan plan, Object object, TokenResolver resolver, Projection projection) {
+        Link[] links = new Link[plan.size()];
+        TokenResolver scope = null;
+
+        for (int i = 0; i < links.length; ++i) {
+            if (projection != null && !projection.includesRel(plan.getBuilder(i).rel())) {
+                continue;
+            }
+
+            if (scope == null) {
+                scope = AbstractTokenResolver.scopeFor(resolver, object);
+            }
+
+            links[i] = plan.buildLink(i, object, scope);
+        }
+
+        return links;
+    }
+
+    /**
+     * Writes the links grouped by rel, in plan order. A rel is written as an array when it has several links or
+     * the plan marks it as an array rel.
+     */
+    private void writeLinks(Link[] links, LinkPlan plan, List<Namespace> namespaces, boolean isEmbedded,
+        JsonInclude.Include inclusion, JsonGenerator jgen)
+    throws IOException {
+        boolean hasCuries = (!isEmbedded && namespaces != null && !namespaces.isEmpty());
+
+        if (!hasCuries && !hasAny(links)) {
+            return;
+        }
+
+        jgen.writeObjectFieldStart(LINKS);
+
+        if (hasCuries) {
+            writeCuries(namespaces, jgen);
+        }
+
+        for (int i = 0; i < links.length; ++i) {
+            if (links[i] == null) {
+                continue;
+            }
+
+            String rel = links[i].getRel();
+            int count = 1;
+
+            for (int j = i + 1; j < links.length; ++j) {
+                if (links[j] != null && rel.equals(links[j].getRel())) {
+                    ++count;
+                }
+            }
+
+            if (count == 1 && !plan.isArrayRel(rel)) {
+                jgen.writeFieldName(rel);
+                HalLinkWriter.write(links[i], inclusion, jgen);
+                links[i] = null;
+
+                continue;
+            }
+
+            jgen.writeArrayFieldStart(rel);
+
+            for (int j = i; j < links.length; ++j) {
+                if (links[j] != null && rel.equals(links[j].getRel())) {
+                    HalLinkWriter.write(links[j], inclusion, jgen);
+                    links[j] = null;
+                }
+            }
+
+            jgen.writeEndArray();
+        }
+
+        jgen.writeEndObject();
+    }
+
+    private void writeCuries(List<Namespace> namespaces, JsonGenerator jgen)
+    throws IOException {
+        if (namespaces.size() == 1) {
+            jgen.writeObjectField(CURIES, namespaces.get(0));
+
+            return;
+        }
+
+        jgen.writeArrayFieldStart(CURIES);
+
+        for (Namespace ns : namespaces) {
+            jgen.writeObject(ns);
+        }
+
+        jgen.writeEndArray();
+    }
+
+    /**
+     * Writes the properties the factory would copy into a resource, in the same order, as it copies them.
+     */
+    private void writeProperties(Object object, Projection projection, JsonGenerator jgen)
+    throws IOException {
+        try {
+            factory.copyProperties(object, new PropertyWriter(jgen), projection);
+        } catch (WriteFailure e) {
+            throw e.getCause();
+        }
+    }
+
+    private HalResource toResource(Object object, LinkPlan plan, TokenResolver resolver, Projection projection) {
+        Resource r = factory.createResource(object, projection);
+        plan.addLinks(r, object, resolver, projection);
+        r.addNamespaces(plan.getNamespaces());
+
+        return (HalResource) r;
+    }
+
+    private CompiledRelationships compiled() {
+        return (relationships == null ? HyperExpress.relationships() : relationships).compile();
+    }
+
+    /**
+     * A resource that writes each property to the generator as it is added instead of keeping it. Like a resource,
+     * it rejects duplicate properties; properties named _links or _embedded are written after the links, as the
+     * serializer writes them.
+     */
+    private static class PropertyWriter extends HalResource {
+        private final JsonGenerator jgen;
+        private final Set<String> names = new HashSet<>();
+
+        PropertyWriter(JsonGenerator jgen) {
+            super();
+            this.jgen = jgen;
+        }
+
+        public boolean hasProperty(String name) {
+            return names.contains(name);
+        }
+
+        public Resource addProperty(String name, Object value) {
+            if (!names.add(name)) {
+                throw new ResourceException("Duplicate property: " + name);
+            }
+
+            try {
+                jgen.writeObjectField(name, value);
+            } catch (IOException e) {
+                throw new WriteFailure(e);
+            }
+
+            return this;
+        }
+    }
+
+    private static class WriteFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        WriteFailure(IOException cause) {
+            super(cause);
+        }
+
+        public IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    private static boolean hasAny(Link[] links) {
+        for (Link link : links) {
+            if (link != null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -59,6 +59,37 @@ public class HalResourceFactoryTest {
         assertNotNull(r.getProperty("IGNORED"));
     }
 
+    @Test
+    public void shouldCopyFieldsWithMethodHandles() {
+        AbstractResourceFactoryStrategy factory =
+            new HalResourceFactory().useMethodHandles(true).includeAnnotations(Include.class);
+        Blog b = new Blog();
+        UUID blogId = UUID.randomUUID();
+        b.setId(blogId);
+        b.setName("Blog Name");
+
+        Resource r = factory.createResource(b);
+        assertEquals(blogId, r.getProperty("id"));
+        assertEquals("Blog Name", r.getProperty("name"));
+        assertEquals(3.14597, r.getProperty("somethingStatic"));
+        assertNull(r.getProperty("description"));
+    }
+
+    @Test
+    public void shouldRecomputeFieldsWhenAnnotationsChange() {
+        AbstractResourceFactoryStrategy factory = new HalResourceFactory();
+        Blog b = new Blog();
+        b.setName("Blog Name");
+
+        assertEquals("Blog Name", factory.createResource(b).getProperty("name"));
+        assertEquals("Blog Name", factory.createResource(b).getProperty("name"));
+
+        factory.excludeAnnotations(Exclude.class);
+        Resource r = factory.createResource(b);
+        assertNull(r.getProperty("name"));
+        assertNull(r.getProperty("somethingTransient"));
+    }
+
     @Test
     public void shouldCreateResourceFromNull() {
         HalResourceFactory factory = new HalResourceFactory();
@@ -1,15 +1,20 @@
 package com.strategicgains.hyperexpress.domain.hal.test;
 
+import java.util.Arrays;
 import java.util.List;
 
 import com.strategicgains.hyperexpress.builder.DefaultTokenResolver;
 import com.strategicgains.hyperexpress.domain.Namespace;
+import com.strategicgains.hyperexpress.domain.Resource;
 import com.strategicgains.hyperexpress.domain.hal.HalLinkBuilder;
 import com.strategicgains.hyperexpress.domain.hal.HalResource;
 import com.strategicgains.hyperexpress.exception.ResourceException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 
 public class HalResourceImplTest {
@@ -71,4 +76,30 @@ public class HalResourceImplTest {
         assertEquals("/sample/{rel}", curies.get(0).href());
         assertEquals("ea:blah", curies.get(0).name());
     }
+
+    @Test
+    public void shouldKeepDeferredRelWhenReadFails() {
+        HalResource r = new HalResource();
+        final boolean[] isAvailable = { false };
+        r.deferResources("items", new HalResource.EmbeddedSource() {
+                public List<? extends Resource> read() {
+                    if (!isAvailable[0]) {
+                        throw new IllegalStateException("unavailable");
+                    }
+
+                    return Arrays.asList(new HalResource().addProperty("id", 1));
+                }
+            });
+
+        try {
+            r.getResources("items");
+            fail("Expected the read to fail");
+        } catch (IllegalStateException e) {
+            assertTrue(r.isDeferred("items"));
+        }
+
+        isAvailable[0] = true;
+        assertEquals(1, r.getResources("items").size());
+        assertFalse(r.isDeferred("items"));
+    }
 }
@@ -0,0 +1,142 @@
+package com.strategicgains.hyperexpress.serialization.jackson.test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.strategicgains.hyperexpress.domain.Resource;
+import com.strategicgains.hyperexpress.domain.hal.HalResource;
+import com.strategicgains.hyperexpress.serialization.jackson.HalResourceDeserializer;
+
+/**
+ * Compares the token-streaming HalResourceDeserializer, eager and lazy, with the former tree-based one on a
+ * multi-megabyte HAL document: throughput, bytes allocated and peak heap per parse. Not a unit test; run with the
+ * hal test classpath and a fixed heap, e.g. java -Xmx1g -XX:+UseSerialGC
+ * com.strategicgains.hyperexpress.serialization.jackson.test.HalResourceDeserializerBenchmark
+ */
+public class HalResourceDeserializerBenchmark {
+    private static final int ITEMS = 20000;
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) throws IOException {
+        byte[] document = document(ITEMS);
+        ObjectMapper tree = mapper(new TreeHalResourceDeserializer());
+        ObjectMapper streaming = mapper(new HalResourceDeserializer());
+        ObjectMapper lazy = mapper(new HalResourceDeserializer().lazyEmbedded(true));
+        System.out.println("document: " + (document.length / 1024) + " KB, " + ITEMS + " embedded items");
+
+        for (int round = 0; round < 3; ++round) {
+            measure("tree              ", tree, document, true);
+            measure("streaming         ", streaming, document, true);
+            measure("lazy, links only  ", lazy, document, false);
+            measure("lazy, all embedded", lazy, document, true);
+        }
+    }
+
+    private static void measure(String name, ObjectMapper mapper, byte[] document, boolean readEmbedded)
+    throws IOException {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long sink = 0;
+
+        System.gc();
+        long baseline = resetPeaks();
+        sink += read(mapper, document, readEmbedded);
+        long peak = peakHeap() - baseline;
+
+        long allocated = threads.getThreadAllocatedBytes(id);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < ITERATIONS; ++i) {
+            sink += read(mapper, document, readEmbedded);
+        }
+
+        long elapsed = (System.nanoTime() - start) / ITERATIONS;
+        allocated = (threads.getThreadAllocatedBytes(id) - allocated) / ITERATIONS;
+
+        System.out.println(name + ": " + (elapsed / 1000000) + " ms/parse, " +
+            ((document.length * 1000L) / elapsed) + " MB/s, " + (allocated / (1024 * 1024)) + " MB allocated, " +
+            (peak / (1024 * 1024)) + " MB peak heap over baseline");
+
+        if (sink == 42) {
+            System.out.print("");
+        }
+    }
+
+    private static int read(ObjectMapper mapper, byte[] document, boolean readEmbedded) throws IOException {
+        HalResource resource = mapper.readValue(document, HalResource.class);
+        int count = resource.getLinks().size();
+
+        if (readEmbedded) {
+            for (Resource item : resource.getResources("items")) {
+                count += item.getLinks().size();
+            }
+        }
+
+        return count;
+    }
+
+    private static long resetPeaks() {
+        long used = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+        }
+
+        return used;
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        return peak;
+    }
+
+    private static ObjectMapper mapper(JsonDeserializer<HalResource> deserializer) {
+        SimpleModule module = new SimpleModule();
+        module.addDeserializer(HalResource.class, deserializer);
+
+        return new ObjectMapper().registerModule(module)
+            .setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .setVisibility(PropertyAccessor.SETTER, Visibility.NONE);
+    }
+
+    private static byte[] document(int items) {
+        StringBuilder s = new StringBuilder(items * 300);
+        s.append("{\"_links\":{\"curies\":[{\"name\":\"ea\",\"href\":\"http://example.com/rels/{rel}\",")
+        .append("\"templated\":true}],\"self\":{\"href\":\"/items\"}},\"_embedded\":{\"items\":[");
+
+        for (int i = 0; i < items; ++i) {
+            if (i > 0) {
+                s.append(',');
+            }
+
+            s.append("{\"_links\":{\"self\":{\"href\":\"/items/").append(i).append("\"},\"ea:parts\":[")
+            .append("{\"href\":\"/items/").append(i).append("/parts/1\",\"title\":\"Part 1\"},")
+            .append("{\"href\":\"/items/").append(i).append("/parts/2\",\"title\":\"Part 2\"}]},")
+            .append("\"id\":").append(i).append(",\"name\":\"item ").append(i)
+            .append("\",\"description\":\"a reasonably descriptive description of the item\",")
+            .append("\"price\":").append(i * 1.25).append(",\"active\":true}");
+        }
+
+        s.append("]},\"count\":").append(items).append('}');
+
+        return s.toString().getBytes();
+    }
+}
@@ -3,17 +3,31 @@ package com.strategicgains.hyperexpress.serialization.jackson.test;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.strategicgains.hyperexpress.BuilderFactory;
+import com.strategicgains.hyperexpress.builder.ConditionalLinkBuilder;
+import com.strategicgains.hyperexpress.builder.DefaultBuilderFactory;
 import com.strategicgains.hyperexpress.builder.DefaultLinkBuilder;
 import com.strategicgains.hyperexpress.builder.LinkBuilder;
+import com.strategicgains.hyperexpress.builder.TokenResolver;
+import com.strategicgains.hyperexpress.builder.UrlBuilder;
 import com.strategicgains.hyperexpress.domain.Link;
 import com.strategicgains.hyperexpress.domain.Namespace;
 import com.strategicgains.hyperexpress.domain.Resource;
@@ -21,7 +35,9 @@ import com.strategicgains.hyperexpress.domain.hal.HalResource;
 import com.strategicgains.hyperexpress.serialization.jackson.HalResourceDeserializer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -95,10 +111,165 @@ public class HalResourceDeserializerTest {
         assertEquals(childrenList.get(1).getProperty("name"), "child 2");
     }
 
+    @Test
+    public void shouldLeaveParserAfterEachResource() throws IOException {
+        String json =
+            "[{\"_links\":{\"curies\":{\"name\":\"ns\",\"href\":\"/ns/{rel}\"},\"self\":{\"href\":\"/a\"}}," +
+            "\"_embedded\":{\"child\":{\"name\":\"c\",\"_links\":{\"self\":{\"href\":\"/c\"}}}}," +
+            "\"nested\":{\"x\":[1,2]},\"count\":3},{\"name\":\"b\"}]";
+        HalResource[] resources = mapper.readValue(json, HalResource[].class);
+
+        assertEquals(2, resources.length);
+        assertEquals(new Namespace("ns", "/ns/{rel}"), resources[0].getNamespaces().get(0));
+        assertEquals("/a", resources[0].getLinks().get(0).getHref());
+        assertEquals("c", resources[0].getResources("child").get(0).getProperty("name"));
+        assertEquals("/c", resources[0].getResources("child").get(0).getLinks().get(0).getHref());
+        assertEquals(3, resources[0].getProperty("count"));
+        assertEquals("b", resources[1].getProperty("name"));
+    }
+
+    @Test
+    public void shouldDeferEmbeddedUntilRead() throws IOException {
+        CountingBuilderFactory factory = new CountingBuilderFactory();
+        SimpleModule module = new SimpleModule();
+        module.addDeserializer(HalResource.class, new HalResourceDeserializer(factory).lazyEmbedded(true));
+
+        ObjectMapper lazy = new ObjectMapper().registerModule(module);
+        String json =
+            "{\"_links\":{\"self\":{\"href\":\"/a\"}},\"_embedded\":{\"items\":[{\"_links\":{\"self\":" +
+            "{\"href\":\"/i/1\"}},\"name\":\"one\"},{\"name\":\"two\"}],\"none\":[]},\"count\":2}";
+        HalResource hal = lazy.readValue(json, HalResource.class);
+
+        assertEquals(1, factory.count);
+        assertEquals(2, hal.getProperty("count"));
+        assertTrue(hal.isDeferred("items"));
+        assertTrue(hal.hasResources("items"));
+        assertFalse(hal.hasResources("none"));
+
+        List<Resource> items = hal.getResources("items");
+        assertEquals(2, factory.count);
+        assertFalse(hal.isDeferred("items"));
+        assertEquals(2, items.size());
+        assertEquals("one", items.get(0).getProperty("name"));
+        assertEquals("/i/1", items.get(0).getLinks().get(0).getHref());
+        assertEquals("two", items.get(1).getProperty("name"));
+    }
+
+    @Test
+    public void shouldKeepNativePropertyTypes() throws IOException {
+        HalResource hal = mapper.readValue("{\"i\":1,\"d\":1.5,\"b\":true,\"s\":\"x\",\"n\":null," +
+                "\"o\":{\"a\":[1,\"two\"]}}", HalResource.class);
+
+        assertEquals(1, hal.getProperty("i"));
+        assertEquals(1.5, hal.getProperty("d"));
+        assertEquals(Boolean.TRUE, hal.getProperty("b"));
+        assertEquals("x", hal.getProperty("s"));
+        assertFalse(hal.hasProperty("n"));
+        assertEquals(Collections.singletonMap("a", Arrays.asList(1, "two")), hal.getProperty("o"));
+    }
+
+    @Test
+    public void shouldBindPropertiesIntoPojo() throws IOException {
+        String json =
+            "{\"_links\":{\"self\":{\"href\":\"/orders/7\"}},\"id\":7,\"unknown\":{\"x\":1}," +
+            "\"_embedded\":{\"items\":[{\"name\":\"i\"}]},\"tags\":[\"a\",\"b\"],\"total\":9.5}";
+        HalResource links = new HalResource();
+        Order order = bind(json, Order.class, links);
+
+        assertEquals(7, order.id);
+        assertEquals(9.5, order.total, 0.0);
+        assertEquals(Arrays.asList("a", "b"), order.tags);
+        assertEquals("/orders/7", links.getLinks().get(0).getHref());
+        assertEquals("i", links.getResources("items").get(0).getProperty("name"));
+        assertFalse(links.hasProperties());
+
+        ImmutableOrder immutable = bind(json, ImmutableOrder.class, null);
+        assertEquals(7, immutable.id);
+    }
+
+    @Test
+    public void shouldBindWithBeanFeatures() throws IOException {
+        String json =
+            "{\"_links\":{\"self\":{\"href\":\"/orders/7\"}},\"id\":7,\"secret\":\"s\"," +
+            "\"meta\":{\"_links\":1},\"_embedded\":{\"items\":{\"name\":\"i\"}},\"color\":\"red\"}";
+        ObjectMapper strict = new ObjectMapper().setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+        HalResource links = new HalResource();
+        FlexibleOrder order;
+
+        try (JsonParser jp = strict.getFactory().createParser(json)) {
+            order = new HalResourceDeserializer().deserialize(strict, jp, FlexibleOrder.class, links);
+        }
+
+        assertEquals(7, order.id);
+        assertNull(order.secret);
+        assertEquals(Collections.singletonMap("_links", 1), order.meta);
+        assertEquals(Collections.singletonMap("color", "red"), order.others);
+        assertEquals("/orders/7", links.getLinks().get(0).getHref());
+        assertEquals("i", links.getResources("items").get(0).getProperty("name"));
+    }
+
+    private <T> T bind(String json, Class<T> type, HalResource links) throws IOException {
+        try (JsonParser jp = mapper.getFactory().createParser(json)) {
+            return new HalResourceDeserializer().deserialize(mapper, jp, type, links);
+        }
+    }
+
     private HalResource whenReadingFromFile(String filename) throws IOException {
         try(InputStream inputStream = this.getClass().getResourceAsStream(filename)) {
             return mapper.readValue(inputStream, HalResource.class);
         }
     }
 
+    private static class Order {
+        private int id;
+        private double total;
+        private List<String> tags;
+    }
+
+    @JsonIgnoreProperties({ "secret" })
+    private static class FlexibleOrder {
+        private int id;
+        private String secret;
+        private Map<String, Object> meta;
+        private Map<String, Object> others = new HashMap<String, Object>();
+
+        @JsonAnySetter
+        void other(String name, Object value) {
+            others.put(name, value);
+        }
+    }
+
+    private static class ImmutableOrder {
+        private final int id;
+
+        @JsonCreator
+        ImmutableOrder(@JsonProperty("id") int id) {
+            this.id = id;
+        }
+    }
+
+    private static class CountingBuilderFactory implements BuilderFactory {
+        private final BuilderFactory delegate = new DefaultBuilderFactory();
+        private int count;
+
+        public ConditionalLinkBuilder newLinkBuilder() {
+            ++count;
+
+            return delegate.newLinkBuilder();
+        }
+
+        public ConditionalLinkBuilder newLinkBuilder(String urlPattern) {
+            ++count;
+
+            return delegate.newLinkBuilder(urlPattern);
+        }
+
+        public UrlBuilder newUrlBuilder() {
+            return delegate.newUrlBuilder();
+        }
+
+        public TokenResolver newTokenResolver() {
+            return delegate.newTokenResolver();
+        }
+    }
 }
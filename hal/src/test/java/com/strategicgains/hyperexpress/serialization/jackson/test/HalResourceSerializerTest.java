@@ -19,6 +19,7 @@ import com.strategicgains.hyperexpress.domain.Resource;
 import com.strategicgains.hyperexpress.domain.hal.HalResource;
 import com.strategicgains.hyperexpress.serialization.jackson.HalResourceSerializer;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -194,6 +195,33 @@ public class HalResourceSerializerTest {
         thenJsonShouldBeEqualTo(json, "resource-with-arrays.json");
     }
 
+    @Test
+    public void shouldWriteNullLinkAttributesByDefaultInclusion() throws JsonProcessingException {
+        ObjectMapper defaults = new ObjectMapper();
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(HalResource.class, new HalResourceSerializer());
+        defaults.registerModule(module);
+        Resource r = new HalResource();
+        r.addLink(new DefaultLinkBuilder().rel("self").urlPattern("/something").title("Some").build());
+
+        assertEquals("{\"_links\":{\"self\":{\"href\":\"/something\",\"name\":null,\"hreflang\":null,"
+            + "\"title\":\"Some\",\"templated\":null,\"type\":null,\"deprecation\":null,\"profile\":null}}}",
+            defaults.writeValueAsString(r));
+    }
+
+    @Test
+    public void shouldLeaveOutEmptyLinkAttributesForNonEmptyInclusion() throws JsonProcessingException {
+        ObjectMapper nonEmpty = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(HalResource.class, new HalResourceSerializer());
+        nonEmpty.registerModule(module);
+        Resource r = new HalResource();
+        r.addLink(new DefaultLinkBuilder().rel("self").urlPattern("/something/{id}").title("").build());
+
+        assertEquals("{\"_links\":{\"self\":{\"href\":\"/something/{id}\",\"templated\":true}}}",
+            nonEmpty.writeValueAsString(r));
+    }
+
     public String fileContent(String filename) throws IOException {
         try(InputStreamReader reader = new InputStreamReader(this.getClass().getResourceAsStream(filename))) {
             return CharStreams.toString(reader);
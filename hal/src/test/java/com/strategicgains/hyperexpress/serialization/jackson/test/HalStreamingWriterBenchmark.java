@@ -0,0 +1,134 @@
+package com.strategicgains.hyperexpress.serialization.jackson.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.strategicgains.hyperexpress.HyperExpress;
+import com.strategicgains.hyperexpress.Projection;
+import com.strategicgains.hyperexpress.builder.RelationshipDefinition;
+import com.strategicgains.hyperexpress.builder.TokenBinder;
+import com.strategicgains.hyperexpress.builder.TokenResolver;
+import com.strategicgains.hyperexpress.domain.hal.HalResource;
+import com.strategicgains.hyperexpress.domain.hal.HalResourceFactory;
+import com.strategicgains.hyperexpress.serialization.jackson.HalResourceSerializer;
+import com.strategicgains.hyperexpress.serialization.jackson.HalStreamingWriter;
+
+/**
+ * Compares building a HalResource collection and serializing it with writing the same collection through
+ * HalStreamingWriter. Not a unit test; run with the hal test classpath:
+ * java com.strategicgains.hyperexpress.serialization.jackson.test.HalStreamingWriterBenchmark
+ */
+public class HalStreamingWriterBenchmark {
+    private static final String HAL_JSON = "application/hal+json";
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 100000;
+
+    public static void main(String[] args) throws IOException {
+        final ObjectMapper mapper = new ObjectMapper();
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(HalResource.class, new HalResourceSerializer());
+        mapper.registerModule(module);
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .setVisibility(PropertyAccessor.GETTER, Visibility.NONE)
+            .setVisibility(PropertyAccessor.IS_GETTER, Visibility.NONE);
+
+        HyperExpress.relationships(new RelationshipDefinition().forCollectionOf(Item.class)
+            .rel("self", "/items")
+            .forClass(Item.class)
+            .rel("self", "/items/{itemId}")
+            .rel("up", "/items")
+            .rel("edit", "/items/{itemId}/edit"));
+        HyperExpress.registerResourceFactoryStrategy(new HalResourceFactory(), HAL_JSON);
+        HyperExpress.tokenBinder(new TokenBinder<Item>() {
+                public void bind(Item item, TokenResolver resolver) {
+                    resolver.bind("itemId", String.valueOf(item.id));
+                }
+            });
+
+        final List<Item> items = new ArrayList<Item>();
+
+        for (int i = 0; i < 10; ++i) {
+            items.add(new Item(i));
+        }
+
+        final HalStreamingWriter writer = new HalStreamingWriter();
+        final OutputStream sink = new NullOutputStream();
+        Task twoPhase = new Task() {
+            public void run() throws IOException {
+                mapper.writeValue(sink, HyperExpress.createCollectionResource(items, Item.class, HAL_JSON));
+            }
+        };
+        Task streaming = new Task() {
+            public void run() throws IOException {
+                JsonGenerator jgen = mapper.getFactory().createGenerator(sink);
+                writer.writeCollection(items, Item.class, "items", HyperExpress.tokenResolver(), Projection.ALL,
+                    jgen);
+                jgen.close();
+            }
+        };
+
+        measure(twoPhase, WARMUP);
+        measure(streaming, WARMUP);
+
+        for (int round = 0; round < 3; ++round) {
+            report("two-phase", measure(twoPhase, ITERATIONS));
+            report("streaming", measure(streaming, ITERATIONS));
+        }
+    }
+
+    private static long[] measure(Task task, int iterations) throws IOException {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(id);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < iterations; ++i) {
+            task.run();
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        return new long[] { elapsed / iterations, (threads.getThreadAllocatedBytes(id) - allocated) / iterations };
+    }
+
+    private static void report(String name, long[] result) {
+        System.out.println(name + ": " + result[0] + " ns, " + result[1] + " bytes allocated per 10-item collection");
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        public void write(int b) {
+        }
+
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Item {
+        private int id;
+        private String name;
+        private String description = "an item";
+        private double price = 9.99;
+        private boolean active = true;
+
+        Item(int id) {
+            this.id = id;
+            this.name = "item-" + id;
+        }
+    }
+}
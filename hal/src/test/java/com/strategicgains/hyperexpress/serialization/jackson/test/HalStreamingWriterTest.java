@@ -0,0 +1,227 @@
+package com.strategicgains.hyperexpress.serialization.jackson.test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.strategicgains.hyperexpress.HyperExpress;
+import com.strategicgains.hyperexpress.Projection;
+import com.strategicgains.hyperexpress.builder.RelationshipDefinition;
+import com.strategicgains.hyperexpress.builder.TokenBinder;
+import com.strategicgains.hyperexpress.builder.TokenResolver;
+import com.strategicgains.hyperexpress.domain.Namespace;
+import com.strategicgains.hyperexpress.domain.Resource;
+import com.strategicgains.hyperexpress.domain.hal.HalResource;
+import com.strategicgains.hyperexpress.domain.hal.HalResourceFactory;
+import com.strategicgains.hyperexpress.exception.ResourceException;
+import com.strategicgains.hyperexpress.serialization.jackson.HalResourceSerializer;
+import com.strategicgains.hyperexpress.serialization.jackson.HalStreamingWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static uk.co.datumedge.hamcrest.json.SameJSONAs.sameJSONAs;
+
+public class HalStreamingWriterTest {
+    private static final String HAL_JSON = "application/hal+json";
+    private static final String RENAMED_JSON = "application/x-renamed+json";
+
+    private static ObjectMapper mapper = new ObjectMapper();
+    private static RelationshipDefinition original;
+    private static HalStreamingWriter writer;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(HalResource.class, new HalResourceSerializer());
+        mapper.registerModule(module);
+        mapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .setVisibility(PropertyAccessor.GETTER, Visibility.NONE)
+            .setVisibility(PropertyAccessor.SETTER, Visibility.NONE)
+            .setVisibility(PropertyAccessor.IS_GETTER, Visibility.NONE);
+
+        RelationshipDefinition rdef =
+            new RelationshipDefinition().addNamespace(new Namespace("ea", "http://example.com/rels/{rel}"))
+            .forCollectionOf(Order.class)
+            .rel("self", "/orders")
+            .rel("ea:search", "/orders{?q}")
+            .forClass(Order.class)
+            .rel("self", "/orders/{orderId}")
+            .rel("ea:items", "/orders/{orderId}/items/1")
+            .rel("ea:items", "/orders/{orderId}/items/2")
+            .rel("ea:customer", "/customers/{customerId}")
+            .title("Customer")
+            .type("application/hal+json")
+            .rels("ea:notes", "/orders/{orderId}/notes")
+            .rel("ea:invoice", "/invoices/{orderId}")
+            .ifBound("invoiced");
+
+        original = HyperExpress.relationships();
+        HyperExpress.relationships(rdef);
+        HyperExpress.registerResourceFactoryStrategy(new HalResourceFactory(), HAL_JSON);
+        HyperExpress.tokenBinder(new TokenBinder<Order>() {
+                public void bind(Order order, TokenResolver resolver) {
+                    resolver.bind("orderId", String.valueOf(order.id));
+                    resolver.bind("customerId", order.customer);
+                }
+            });
+        writer = new HalStreamingWriter();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() {
+        HyperExpress.relationships(original);
+        HyperExpress.clearTokenBindings();
+    }
+
+    @Test
+    public void shouldStreamSameJsonAsResource() throws IOException {
+        Order order = new Order(42, "todd", 12.5);
+
+        assertThat(stream(order, null), sameJSONAs(mapper.writeValueAsString(HyperExpress.createResource(order,
+                        HAL_JSON))));
+    }
+
+    @Test
+    public void shouldStreamSameJsonAsCollectionResource() throws IOException {
+        List<Order> orders = Arrays.asList(new Order(1, "a", 1.0), new Order(2, "b", 2.0));
+        String expected = mapper.writeValueAsString(HyperExpress.createCollectionResource(orders, Order.class,
+                    HAL_JSON));
+
+        assertThat(stream(orders, null), sameJSONAs(expected));
+        assertThat(stream(Collections.<Order>emptyList(), null),
+            sameJSONAs(mapper.writeValueAsString(HyperExpress.createCollectionResource(null, Order.class,
+                        HAL_JSON))));
+    }
+
+    @Test
+    public void shouldStreamProjection() throws IOException {
+        Order order = new Order(7, "sam", 3.0);
+        Projection projection = Projection.parse("id").rels("self", "ea:customer");
+
+        assertThat(stream(order, projection),
+            sameJSONAs(mapper.writeValueAsString(HyperExpress.createResource(order, HAL_JSON, projection))));
+    }
+
+    @Test
+    public void shouldStreamSameJsonAsCustomizedFactory() throws IOException {
+        HalResourceFactory renaming = new HalResourceFactory() {
+            protected void addProperty(Resource to, Field f, Object value) {
+                to.addProperty(f.getName().toUpperCase(), value);
+            }
+        };
+        HyperExpress.registerResourceFactoryStrategy(renaming, RENAMED_JSON);
+        Order order = new Order(3, "kim", 9.0);
+        StringWriter out = new StringWriter();
+        JsonGenerator jgen = mapper.getFactory().createGenerator(out);
+        new HalStreamingWriter(renaming, null).write(order, HyperExpress.tokenResolver(), null, jgen);
+        jgen.close();
+
+        assertThat(out.toString(),
+            sameJSONAs(mapper.writeValueAsString(HyperExpress.createResource(order, RENAMED_JSON))));
+    }
+
+    @Test
+    public void shouldStreamMixedCollectionLikeResource() throws IOException {
+        Projection projection = Projection.parse("id,_links.self");
+        String streamed = stream(Arrays.asList(new Order(1, "a", 1.0), new HalResource().addProperty("note", "n"),
+                    new Order(2, "b", 2.0)), projection);
+        String expected = mapper.writeValueAsString(HyperExpress.createCollectionResource(Arrays.asList(
+                        new Order(1, "a", 1.0), new HalResource().addProperty("note", "n"), new Order(2, "b", 2.0)),
+                    Order.class, "orders", HAL_JSON, projection));
+
+        assertThat(streamed, sameJSONAs(expected));
+    }
+
+    @Test
+    public void shouldStreamReservedPropertyNamesLikeResource() throws IOException {
+        ReservedOrder order = new ReservedOrder(5, "lee", 4.0);
+
+        assertEquals(mapper.writeValueAsString(HyperExpress.createResource(order, HAL_JSON)), stream(order, null));
+    }
+
+    @Test
+    public void shouldRejectDuplicatePropertiesLikeResource() throws IOException {
+        ShadowingOrder order = new ShadowingOrder(6, "max", 5.0);
+
+        try {
+            HyperExpress.createResource(order, HAL_JSON);
+            fail("Resource accepted a duplicate property");
+        } catch (ResourceException e) {
+            assertEquals("Duplicate property: id", e.getMessage());
+        }
+
+        try {
+            stream(order, null);
+            fail("Streaming writer accepted a duplicate property");
+        } catch (ResourceException e) {
+            assertEquals("Duplicate property: id", e.getMessage());
+        }
+    }
+
+    private String stream(Object object, Projection projection) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonGenerator jgen = mapper.getFactory().createGenerator(out);
+
+        if (object instanceof List) {
+            writer.writeCollection((List<?>) object, Order.class, "orders", HyperExpress.tokenResolver(),
+                projection, jgen);
+        } else {
+            writer.write(object, HyperExpress.tokenResolver(), projection, jgen);
+        }
+
+        jgen.close();
+
+        return out.toString();
+    }
+
+    @SuppressWarnings("unused")
+    private static class Order {
+        private int id;
+        private String customer;
+        private double total;
+        private String note;
+
+        Order(int id, String customer, double total) {
+            this.id = id;
+            this.customer = customer;
+            this.total = total;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class ReservedOrder extends Order {
+        private String _links = "reserved links";
+        private String _embedded = "reserved embedded";
+
+        ReservedOrder(int id, String customer, double total) {
+            super(id, customer, total);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class ShadowingOrder extends Order {
+        private int id;
+
+        ShadowingOrder(int id, String customer, double total) {
+            super(id, customer, total);
+            this.id = id;
+        }
+    }
+}